@@ -0,0 +1,54 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+/**
+ * Creates the matchers that are selected by the implementation parameter of
+ * the benchmarks.
+ */
+final class BenchmarkMatchers {
+
+	private BenchmarkMatchers() {
+	}
+
+	static UnsolvableBinwordMatcher create(String implementation) {
+		switch (implementation) {
+		case "JavaRegexUBM":
+			return new JavaRegexUBM();
+		case "PatternUBM":
+			return new PatternUBM();
+		case "LetterCountingUBM":
+			return new LetterCountingUBM();
+		case "RepetitionUBM":
+			return new RepetitionUBM();
+		case "AutomatonUBM":
+			return new AutomatonUBM(new BinaryWordList().getUnsolvableWords());
+		case "LookupTableUBM":
+			return new LookupTableUBM();
+		case "HybridUBM":
+			return new HybridUBM();
+		default:
+			throw new RuntimeException("Unhandled parameter value");
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
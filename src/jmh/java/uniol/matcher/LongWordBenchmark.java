@@ -0,0 +1,75 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Classifies single long words from {@link WorstCaseWords}. Random words
+ * contain an unsolvable factor near their start, while the other inputs are
+ * solvable, so no matcher can stop early and the asymptotic behavior shows.
+ * JavaRegexUBM is left out because it needs seconds for 10000 letters, it can
+ * still be selected with <code>-p implementation=JavaRegexUBM</code>.
+ */
+@State(Scope.Thread)
+public class LongWordBenchmark {
+
+	@Param({ "PatternUBM", "LetterCountingUBM", "RepetitionUBM", "AutomatonUBM", "LookupTableUBM",
+			"HybridUBM" })
+	public String implementation;
+
+	@Param({ "1000", "10000", "100000" })
+	public int wordLength;
+
+	/**
+	 * Name of a {@link WorstCaseWords.Family}.
+	 */
+	@Param({ "RANDOM", "PERIODIC", "NEAR_PATTERN_II", "BALANCED", "FIBONACCI", "BLOCKS" })
+	public String input;
+
+	private UnsolvableBinwordMatcher matcher;
+	private BinaryWord word;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		matcher = BenchmarkMatchers.create(implementation);
+		word = BinaryWord.valueOf(WorstCaseWords.generate(WorstCaseWords.Family.valueOf(input), wordLength));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public boolean measureIsUnsolvableWord() {
+		return matcher.isUnsolvableBinaryWord(word);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
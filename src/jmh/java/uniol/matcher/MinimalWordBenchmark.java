@@ -0,0 +1,89 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Classifies the minimal unsolvable words from the word list together with
+ * their longest proper prefixes, which are solvable. Unlike the exhaustive word
+ * sets, these words only become unsolvable at their last letter, and their
+ * lengths follow the distribution of the list.
+ */
+@State(Scope.Thread)
+public class MinimalWordBenchmark {
+
+	@Param({ "JavaRegexUBM", "PatternUBM", "LetterCountingUBM", "RepetitionUBM", "AutomatonUBM", "LookupTableUBM",
+			"HybridUBM" })
+	public String implementation;
+
+	private UnsolvableBinwordMatcher matcher;
+	private BinaryWord[] words;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		matcher = BenchmarkMatchers.create(implementation);
+		final List<String> minimalWords = new BinaryWordList().getUnsolvableWords();
+		words = new BinaryWord[2 * minimalWords.size()];
+		for (int i = 0; i < minimalWords.size(); i++) {
+			final String word = minimalWords.get(i);
+			words[2 * i] = BinaryWord.valueOf(word);
+			words[2 * i + 1] = BinaryWord.valueOf(word.substring(0, word.length() - 1));
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void measureAllWords(Blackhole bh) {
+		for (BinaryWord word : words) {
+			bh.consume(matcher.isUnsolvableBinaryWord(word));
+		}
+	}
+
+	/**
+	 * Measures the latency distribution of single words, which are taken
+	 * from the list in turn.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public boolean measureSingleWord() {
+		final BinaryWord word = words[next];
+		next = next + 1 == words.length ? 0 : next + 1;
+		return matcher.isUnsolvableBinaryWord(word);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,6 +19,7 @@
 
 package uniol.matcher;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -36,7 +37,8 @@ import org.openjdk.jmh.infra.Blackhole;
 @State(Scope.Thread)
 public class UnsolvableBinwordMatcherBenchmark {
 
-	@Param({ "JavaRegexUBM", "PatternUBM", "LetterCountingUBM" })
+	@Param({ "JavaRegexUBM", "PatternUBM", "LetterCountingUBM", "RepetitionUBM", "AutomatonUBM", "LookupTableUBM",
+			"HybridUBM" })
 	public String implementation;
 
 	@Param({ "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "15", "20" })
@@ -44,23 +46,20 @@ public class UnsolvableBinwordMatcherBenchmark {
 
 	private UnsolvableBinwordMatcher matcher;
 	private List<String> words;
+	private String[] wordArray;
+	private long[] packedWords;
+	private long[] result;
 
 	@Setup(Level.Trial)
 	public void setup() {
-		switch (implementation) {
-		case "JavaRegexUBM":
-			matcher = new JavaRegexUBM();
-			break;
-		case "PatternUBM":
-			matcher = new PatternUBM();
-			break;
-		case "LetterCountingUBM":
-			matcher = new LetterCountingUBM();
-			break;
-		default:
-			throw new RuntimeException("Unhandled parameter value");
-		}
+		matcher = BenchmarkMatchers.create(implementation);
 		words = new BinaryWordList().getWordsOfLength(wordLength);
+		wordArray = words.toArray(new String[0]);
+		packedWords = new long[wordArray.length];
+		for (int i = 0; i < wordArray.length; i++) {
+			packedWords[i] = BinaryWord.valueOf(wordArray[i]).toLong();
+		}
+		result = new long[BinaryWord.wordCount(wordArray.length)];
 	}
 
 	@Benchmark
@@ -72,6 +71,21 @@ public class UnsolvableBinwordMatcherBenchmark {
 		}
 	}
 
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public BitSet measureClassify() {
+		return matcher.classify(wordArray);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public long[] measureClassifyPacked() {
+		matcher.classify(packedWords, wordLength, result);
+		return result;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
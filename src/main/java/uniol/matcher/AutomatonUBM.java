@@ -0,0 +1,314 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Implementation that compiles a list of minimal unsolvable words into an
+ * Aho-Corasick automaton. A word is unsolvable exactly if it contains a minimal
+ * unsolvable word as factor, so every word is classified with a single scan
+ * over its letters.
+ *
+ * <p>
+ * The automaton is exact for words up to the length of the longest word in the
+ * list, provided the list contains all minimal unsolvable words up to that
+ * length. Longer words that do not contain a listed factor are passed to a
+ * fallback matcher.
+ * </p>
+ */
+public class AutomatonUBM implements UnsolvableBinwordMatcher {
+
+	/**
+	 * Missing child in the trie while the automaton is compiled.
+	 */
+	private static final int NONE = -1;
+
+	// transitions[2 * state + letter] is the next state, the start state is
+	// 0. Accepting states are never left, so they are not stored, and a
+	// transition into one holds the negated length of the listed word that
+	// ends with the letter.
+	private final int[] transitions;
+	private final int maxLength;
+	private final UnsolvableBinwordMatcher fallback;
+	private final PatternUBM decoder = new PatternUBM();
+
+	/**
+	 * Creates a matcher that uses {@link PatternUBM} for words longer than
+	 * the longest minimal word.
+	 *
+	 * @param minimalWords
+	 *                all minimal unsolvable words up to some length, e.g.
+	 *                from <code>BinaryWordList.getUnsolvableWords()</code>
+	 */
+	public AutomatonUBM(Collection<String> minimalWords) {
+		this(minimalWords, new PatternUBM());
+	}
+
+	public AutomatonUBM(Collection<String> minimalWords, UnsolvableBinwordMatcher fallback) {
+		this.maxLength = minimalWords.stream().mapToInt(String::length).max().orElse(0);
+		this.transitions = compile(minimalWords);
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Returns the length up to which words are classified by the automaton
+	 * alone.
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Returns the number of non-accepting states of the automaton.
+	 */
+	public int getStateCount() {
+		return transitions.length / 2;
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(String word) {
+		final int[] table = transitions;
+		int state = 0;
+		for (int i = 0; i < word.length(); i++) {
+			state = table[2 * state + letter(word.charAt(i))];
+			if (state < 0) {
+				checkLetters(word, i + 1);
+				return true;
+			}
+		}
+		return word.length() > maxLength && fallback.isUnsolvableBinaryWord(word);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		final int[] table = transitions;
+		int state = 0;
+		for (int k = 0; k < word.bits.length; k++) {
+			long bits = word.bits[k];
+			final int end = Math.min(Long.SIZE, word.length - k * Long.SIZE);
+			for (int i = 0; i < end; i++) {
+				state = table[2 * state + ((int) bits & 1)];
+				if (state < 0) {
+					return true;
+				}
+				bits >>>= 1;
+			}
+		}
+		return word.length > maxLength && fallback.isUnsolvableBinaryWord(word);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(long bits, int length) {
+		BinaryWord.checkPackedLength(length);
+		final int[] table = transitions;
+		int state = 0;
+		for (int i = 0; i < length; i++) {
+			state = table[2 * state + ((int) (bits >>> i) & 1)];
+			if (state < 0) {
+				return true;
+			}
+		}
+		return length > maxLength && fallback.isUnsolvableBinaryWord(bits, length);
+	}
+
+	/**
+	 * Finds the factor in the same scan as
+	 * {@link #isUnsolvableBinaryWord(String)}. The automaton reports where
+	 * the listed word ends and how long it is, so only its pattern and
+	 * parameters are left to decode.
+	 */
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		final int[] table = transitions;
+		int state = 0;
+		for (int i = 0; i < word.length(); i++) {
+			state = table[2 * state + letter(word.charAt(i))];
+			if (state < 0) {
+				checkLetters(word, i + 1);
+				final int start = i + 1 + state;
+				return decode(word.substring(start, i + 1), start);
+			}
+		}
+		return word.length() > maxLength ? fallback.findUnsolvableFactor(word) : null;
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		final int[] table = transitions;
+		int state = 0;
+		for (int i = 0; i < word.length; i++) {
+			state = table[2 * state + BinaryWord.bitAt(word.bits, i)];
+			if (state < 0) {
+				final int start = i + 1 + state;
+				final char[] factor = new char[-state];
+				for (int j = 0; j < factor.length; j++) {
+					factor[j] = BinaryWord.bitAt(word.bits, start + j) == 0 ? 'a' : 'b';
+				}
+				return decode(new String(factor), start);
+			}
+		}
+		return word.length > maxLength ? fallback.findUnsolvableFactor(word) : null;
+	}
+
+	/**
+	 * Returns the pattern and parameters of a listed word that was found at
+	 * the given index.
+	 */
+	private UnsolvableFactor decode(String listedWord, int start) {
+		final UnsolvableFactor factor = decoder.findUnsolvableFactor(listedWord);
+		return factor == null ? null : factor.shift(start);
+	}
+
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		BinaryWord.checkBatch(words, length, result);
+		final int[] table = transitions;
+		final boolean exact = length <= maxLength;
+		for (int i = 0; i < words.length; i++) {
+			final long bits = words[i];
+			int state = 0;
+			for (int j = 0; j < length && state >= 0; j++) {
+				state = table[2 * state + ((int) (bits >>> j) & 1)];
+			}
+			if (state < 0 || (!exact && fallback.isUnsolvableBinaryWord(bits, length))) {
+				result[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
+	/**
+	 * Builds the trie of the words, completes it with the failure links and
+	 * returns the transition table of its non-accepting states.
+	 */
+	private static int[] compile(Collection<String> words) {
+		int[] next = new int[64];
+		boolean[] accepting = new boolean[32];
+		// length of the listed word that is a suffix of an accepting state
+		int[] match = new int[32];
+		Arrays.fill(next, NONE);
+		int size = 1;
+
+		for (String word : words) {
+			int state = 0;
+			int depth = 0;
+			for (; depth < word.length() && !accepting[state]; depth++) {
+				final int letter = letter(word.charAt(depth));
+				if (next[2 * state + letter] == NONE) {
+					if (size == accepting.length) {
+						next = Arrays.copyOf(next, 4 * size);
+						Arrays.fill(next, 2 * size, 4 * size, NONE);
+						accepting = Arrays.copyOf(accepting, 2 * size);
+						match = Arrays.copyOf(match, 2 * size);
+					}
+					next[2 * state + letter] = size++;
+				}
+				state = next[2 * state + letter];
+			}
+			accepting[state] = true;
+			match[state] = depth;
+		}
+
+		// breadth first, so the failure target of a state is complete
+		// before the state itself
+		final int[] fail = new int[size];
+		final int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+		for (int letter = 0; letter <= 1; letter++) {
+			final int child = next[letter];
+			if (child == NONE) {
+				next[letter] = 0;
+			} else {
+				fail[child] = 0;
+				queue[tail++] = child;
+			}
+		}
+		while (head < tail) {
+			final int state = queue[head++];
+			if (accepting[fail[state]]) {
+				// the listed word of the failure target is a shorter suffix
+				accepting[state] = true;
+				match[state] = match[fail[state]];
+			}
+			if (accepting[state]) {
+				// trie states below an accepting state exist if a word
+				// was listed before one of its factors, they accept too
+				for (int letter = 0; letter <= 1; letter++) {
+					final int child = next[2 * state + letter];
+					if (child != NONE) {
+						accepting[child] = true;
+						queue[tail++] = child;
+					}
+				}
+				continue;
+			}
+			for (int letter = 0; letter <= 1; letter++) {
+				final int child = next[2 * state + letter];
+				final int target = next[2 * fail[state] + letter];
+				if (child == NONE) {
+					next[2 * state + letter] = target;
+				} else {
+					fail[child] = target;
+					queue[tail++] = child;
+				}
+			}
+		}
+
+		// number the non-accepting states in order and replace all
+		// transitions into accepting states by the negated match length
+		final int[] index = new int[size];
+		int count = 0;
+		for (int state = 0; state < size; state++) {
+			index[state] = accepting[state] ? -match[state] : count++;
+		}
+		final int[] table = new int[2 * count];
+		for (int state = 0; state < size; state++) {
+			if (!accepting[state]) {
+				table[2 * index[state]] = index[next[2 * state]];
+				table[2 * index[state] + 1] = index[next[2 * state + 1]];
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Checks the letters after a match, which the automaton does not read.
+	 */
+	private static void checkLetters(String word, int start) {
+		for (int i = start; i < word.length(); i++) {
+			letter(word.charAt(i));
+		}
+	}
+
+	private static int letter(char c) {
+		if (c == 'a') {
+			return 0;
+		} else if (c == 'b') {
+			return 1;
+		} else {
+			throw new IllegalArgumentException("Not a binary letter: '" + c + "'");
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,262 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.Arrays;
+
+/**
+ * Immutable binary word over the alphabet {a, b} that is stored as a bit array.
+ * Letter <code>i</code> is kept in bit <code>i % 64</code> of
+ * <code>bits[i / 64]</code>, where a cleared bit is an 'a' and a set bit is a
+ * 'b'. Unused bits in the last element are always zero.
+ */
+public final class BinaryWord {
+
+	/**
+	 * Maximum length of a word that fits into a single <code>long</code>.
+	 */
+	public static final int MAX_PACKED_LENGTH = Long.SIZE;
+
+	final long[] bits;
+	final int length;
+
+	private BinaryWord(long[] bits, int length) {
+		this.bits = bits;
+		this.length = length;
+	}
+
+	/**
+	 * Creates a binary word from a string over the alphabet {a, b}.
+	 *
+	 * @param word
+	 *                string consisting only of the letters 'a' and 'b'
+	 * @return packed representation of the word
+	 * @throws IllegalArgumentException
+	 *                 if the string contains any other letter
+	 */
+	public static BinaryWord valueOf(String word) {
+		final int length = word.length();
+		final long[] bits = new long[wordCount(length)];
+		for (int i = 0; i < length; i++) {
+			final char c = word.charAt(i);
+			if (c == 'b') {
+				bits[i >>> 6] |= 1L << i;
+			} else if (c != 'a') {
+				throw new IllegalArgumentException("Not a binary word: '" + word + "'");
+			}
+		}
+		return new BinaryWord(bits, length);
+	}
+
+	/**
+	 * Creates a binary word of at most {@link #MAX_PACKED_LENGTH} letters
+	 * from a single <code>long</code>.
+	 *
+	 * @param bits
+	 *                letters of the word, bit i is letter i
+	 * @param length
+	 *                number of letters
+	 * @return packed representation of the word
+	 */
+	public static BinaryWord valueOf(long bits, int length) {
+		checkPackedLength(length);
+		return new BinaryWord(new long[] { bits & mask(length) }, length);
+	}
+
+	/**
+	 * Creates a binary word from a bit array. The array is copied.
+	 *
+	 * @param bits
+	 *                letters of the word, bit i % 64 of element i / 64 is
+	 *                letter i
+	 * @param length
+	 *                number of letters
+	 * @return packed representation of the word
+	 */
+	public static BinaryWord valueOf(long[] bits, int length) {
+		final int count = wordCount(length);
+		if (length < 0 || bits.length < count) {
+			throw new IllegalArgumentException("Bit array too short for length " + length);
+		}
+		final long[] copy = Arrays.copyOf(bits, count);
+		if (count > 0) {
+			copy[count - 1] &= mask(length - (count - 1) * Long.SIZE);
+		}
+		return new BinaryWord(copy, length);
+	}
+
+	/**
+	 * Returns the number of <code>long</code> elements needed to store a
+	 * word of the given length.
+	 */
+	static int wordCount(int length) {
+		return (length + Long.SIZE - 1) >>> 6;
+	}
+
+	/**
+	 * Returns a mask with the lowest <code>length</code> bits set.
+	 */
+	static long mask(int length) {
+		return length >= Long.SIZE ? -1L : (1L << length) - 1;
+	}
+
+	/**
+	 * Returns letter <code>index</code> of the given bit array as bit.
+	 */
+	static int bitAt(long[] bits, int index) {
+		return (int) (bits[index >>> 6] >>> index) & 1;
+	}
+
+	/**
+	 * Returns the 64 letters of the given bit array starting at letter
+	 * <code>start</code>. Letters past the end of the array are 'a'.
+	 */
+	static long window(long[] bits, int start) {
+		final int index = start >>> 6;
+		if (index >= bits.length) {
+			return 0;
+		}
+		final int offset = start & 63;
+		long window = bits[index] >>> offset;
+		if (offset != 0 && index + 1 < bits.length) {
+			window |= bits[index + 1] << (Long.SIZE - offset);
+		}
+		return window;
+	}
+
+	/**
+	 * Checks if the <code>length</code> letters starting at
+	 * <code>start1</code> equal the ones starting at <code>start2</code>.
+	 */
+	static boolean regionMatches(long[] bits, int start1, int start2, int length) {
+		for (int i = 0; i < length; i += Long.SIZE) {
+			final long diff = window(bits, start1 + i) ^ window(bits, start2 + i);
+			if ((diff & mask(length - i)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static void checkPackedLength(int length) {
+		if (length < 0 || length > MAX_PACKED_LENGTH) {
+			throw new IllegalArgumentException("Packed word length out of range: " + length);
+		}
+	}
+
+	/**
+	 * Validates the arguments of
+	 * {@link UnsolvableBinwordMatcher#classify(long[], int, long[])} and
+	 * clears the part of the result bitmap that is written.
+	 */
+	static void checkBatch(long[] words, int length, long[] result) {
+		checkPackedLength(length);
+		final int count = wordCount(words.length);
+		if (result.length < count) {
+			throw new IllegalArgumentException(
+					"Result needs " + count + " elements, but has " + result.length);
+		}
+		Arrays.fill(result, 0, count, 0);
+	}
+
+	public int length() {
+		return length;
+	}
+
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	/**
+	 * Returns the letter at the given index as bit, i.e. 0 for 'a' and 1 for
+	 * 'b'.
+	 */
+	public int bitAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+		}
+		return bitAt(bits, index);
+	}
+
+	public char charAt(int index) {
+		return bitAt(index) == 0 ? 'a' : 'b';
+	}
+
+	/**
+	 * Returns the first 64 letters of the word. Only meaningful for words
+	 * of at most {@link #MAX_PACKED_LENGTH} letters.
+	 */
+	public long toLong() {
+		return bits.length == 0 ? 0 : bits[0];
+	}
+
+	/**
+	 * Returns a copy of the underlying bit array.
+	 */
+	public long[] toLongArray() {
+		return bits.clone();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BinaryWord)) {
+			return false;
+		}
+		BinaryWord other = (BinaryWord) obj;
+		return length == other.length && Arrays.equals(bits, other.bits);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(bits) + length;
+	}
+
+	@Override
+	public String toString() {
+		return toString(bits, length);
+	}
+
+	/**
+	 * Returns the string form of a word stored in a single
+	 * <code>long</code>.
+	 */
+	public static String toString(long bits, int length) {
+		checkPackedLength(length);
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = ((bits >>> i) & 1) == 0 ? 'a' : 'b';
+		}
+		return new String(chars);
+	}
+
+	private static String toString(long[] bits, int length) {
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = bitAt(bits, i) == 0 ? 'a' : 'b';
+		}
+		return new String(chars);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
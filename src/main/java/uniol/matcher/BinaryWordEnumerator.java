@@ -0,0 +1,244 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Enumerates all binary words of a given length without materializing them.
+ * Words are handed out in the packed form of
+ * {@link UnsolvableBinwordMatcher#isUnsolvableBinaryWord(long, int)}, so the
+ * enumeration itself runs in constant memory and does not allocate per word.
+ *
+ * <p>
+ * Every word has an index in <code>[0, 2<sup>n</sup>)</code>, which allows
+ * splitting the enumeration into independent ranges.
+ * </p>
+ */
+public final class BinaryWordEnumerator {
+
+	/**
+	 * Maximum word length that can be enumerated. The number of words must
+	 * fit into a positive <code>long</code>.
+	 */
+	public static final int MAX_LENGTH = Long.SIZE - 2;
+
+	/**
+	 * Order in which the words are enumerated.
+	 */
+	public enum Order {
+		/**
+		 * Lexicographic order with 'a' &lt; 'b', i.e. the order of the
+		 * sorted string forms.
+		 */
+		LEXICOGRAPHIC,
+		/**
+		 * Binary reflected Gray code order, consecutive words differ in
+		 * exactly one letter.
+		 */
+		GRAY
+	}
+
+	/**
+	 * Callback that receives packed words.
+	 */
+	@FunctionalInterface
+	public interface WordConsumer {
+
+		/**
+		 * @param bits
+		 *                letters of the word, bit i is letter i
+		 * @param length
+		 *                number of letters
+		 */
+		void accept(long bits, int length);
+
+	}
+
+	private final int length;
+	private final Order order;
+
+	/**
+	 * Creates an enumerator for all words of the given length in
+	 * lexicographic order.
+	 */
+	public BinaryWordEnumerator(int length) {
+		this(length, Order.LEXICOGRAPHIC);
+	}
+
+	public BinaryWordEnumerator(int length, Order order) {
+		if (length < 0 || length > MAX_LENGTH) {
+			throw new IllegalArgumentException("Word length out of range: " + length);
+		}
+		this.length = length;
+		this.order = order;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public Order getOrder() {
+		return order;
+	}
+
+	/**
+	 * Returns the number of words, i.e. 2<sup>length</sup>.
+	 */
+	public long size() {
+		return 1L << length;
+	}
+
+	/**
+	 * Returns the packed word with the given index.
+	 */
+	public long wordAt(long index) {
+		switch (order) {
+		case LEXICOGRAPHIC:
+			// the first letter is the most significant one
+			return length == 0 ? 0 : Long.reverse(index) >>> (Long.SIZE - length);
+		case GRAY:
+			return index ^ (index >>> 1);
+		default:
+			throw new RuntimeException("Unhandled order");
+		}
+	}
+
+	/**
+	 * Passes every word to the given consumer.
+	 */
+	public void forEach(WordConsumer consumer) {
+		forEach(0, size(), consumer);
+	}
+
+	/**
+	 * Passes the words with indices in <code>[fromIndex, toIndex)</code> to
+	 * the given consumer.
+	 */
+	public void forEach(long fromIndex, long toIndex, WordConsumer consumer) {
+		checkRange(fromIndex, toIndex);
+		for (long i = fromIndex; i < toIndex; i++) {
+			consumer.accept(wordAt(i), length);
+		}
+	}
+
+	/**
+	 * Counts the words that the given matcher classifies as unsolvable.
+	 */
+	public long countUnsolvable(UnsolvableBinwordMatcher matcher) {
+		return countUnsolvable(matcher, 0, size());
+	}
+
+	/**
+	 * Counts the words with indices in <code>[fromIndex, toIndex)</code>
+	 * that the given matcher classifies as unsolvable.
+	 */
+	public long countUnsolvable(UnsolvableBinwordMatcher matcher, long fromIndex, long toIndex) {
+		checkRange(fromIndex, toIndex);
+		long count = 0;
+		for (long i = fromIndex; i < toIndex; i++) {
+			if (matcher.isUnsolvableBinaryWord(wordAt(i), length)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a spliterator over all packed words. It splits by halving its
+	 * index range.
+	 */
+	public Spliterator.OfLong spliterator() {
+		return new WordSpliterator(0, size());
+	}
+
+	/**
+	 * Returns a stream of all packed words.
+	 *
+	 * @param parallel
+	 *                if true the returned stream is parallel
+	 */
+	public LongStream stream(boolean parallel) {
+		return StreamSupport.longStream(spliterator(), parallel);
+	}
+
+	private void checkRange(long fromIndex, long toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") out of bounds");
+		}
+	}
+
+	private final class WordSpliterator implements Spliterator.OfLong {
+
+		private long index;
+		private final long end;
+
+		WordSpliterator(long index, long end) {
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(LongConsumer action) {
+			if (index < end) {
+				action.accept(wordAt(index++));
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(LongConsumer action) {
+			final long to = end;
+			for (long i = index; i < to; i++) {
+				action.accept(wordAt(i));
+			}
+			index = to;
+		}
+
+		@Override
+		public Spliterator.OfLong trySplit() {
+			final long mid = index + (end - index) / 2;
+			if (mid == index) {
+				return null;
+			}
+			final WordSpliterator prefix = new WordSpliterator(index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
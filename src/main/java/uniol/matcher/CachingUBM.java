@@ -0,0 +1,207 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matcher that remembers the results of another matcher for words of up to
+ * {@link BinaryWord#MAX_PACKED_LENGTH} letters. Longer words are passed on
+ * without caching.
+ *
+ * <p>
+ * The cache is a direct mapped table with a fixed number of slots that is
+ * keyed on the packed word and its length. A new result replaces the entry in
+ * its slot, so the memory use is bounded and no locks are needed. The entries
+ * are immutable, which makes the cache safe for concurrent use as long as the
+ * wrapped matcher is thread-safe.
+ * </p>
+ */
+public class CachingUBM implements UnsolvableBinwordMatcher {
+
+	/**
+	 * Default number of cached results.
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private final UnsolvableBinwordMatcher matcher;
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public CachingUBM(UnsolvableBinwordMatcher matcher) {
+		this(matcher, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param matcher
+	 *                matcher whose results are cached
+	 * @param capacity
+	 *                maximum number of cached results, rounded up to a
+	 *                power of two
+	 */
+	public CachingUBM(UnsolvableBinwordMatcher matcher, int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity out of range: " + capacity);
+		}
+		final int size = Integer.highestOneBit(capacity - 1) << 1;
+		this.matcher = matcher;
+		this.entries = new AtomicReferenceArray<>(Math.max(1, size));
+		this.mask = entries.length() - 1;
+	}
+
+	/**
+	 * Returns the maximum number of cached results.
+	 */
+	public int getCapacity() {
+		return entries.length();
+	}
+
+	/**
+	 * Returns the number of lookups that were answered from the cache.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that were passed to the wrapped matcher.
+	 * Words that are too long to be cached are not counted.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of cached results that were replaced by another
+	 * word.
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the fraction of lookups that were answered from the cache, or
+	 * 0 if there were none.
+	 */
+	public double getHitRate() {
+		final long hitCount = getHitCount();
+		final long total = hitCount + getMissCount();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	/**
+	 * Resets the statistics but keeps the cached results.
+	 */
+	public void resetStatistics() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+	/**
+	 * Removes all cached results.
+	 */
+	public void clear() {
+		for (int i = 0; i < entries.length(); i++) {
+			entries.set(i, null);
+		}
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(String word) {
+		final int length = word.length();
+		if (length > BinaryWord.MAX_PACKED_LENGTH) {
+			return matcher.isUnsolvableBinaryWord(word);
+		}
+		long bits = 0;
+		for (int i = 0; i < length; i++) {
+			final char c = word.charAt(i);
+			if (c == 'b') {
+				bits |= 1L << i;
+			} else if (c != 'a') {
+				throw new IllegalArgumentException("Not a binary word: '" + word + "'");
+			}
+		}
+		return isUnsolvableBinaryWord(bits, length);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		if (word.length > BinaryWord.MAX_PACKED_LENGTH) {
+			return matcher.isUnsolvableBinaryWord(word);
+		}
+		return isUnsolvableBinaryWord(word.toLong(), word.length);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(long bits, int length) {
+		BinaryWord.checkPackedLength(length);
+		bits &= BinaryWord.mask(length);
+		final int slot = slot(bits, length);
+		final Entry entry = entries.get(slot);
+		if (entry != null && entry.bits == bits && entry.length == length) {
+			hits.increment();
+			return entry.unsolvable;
+		}
+		misses.increment();
+		final boolean unsolvable = matcher.isUnsolvableBinaryWord(bits, length);
+		if (entry != null) {
+			evictions.increment();
+		}
+		entries.lazySet(slot, new Entry(bits, length, unsolvable));
+		return unsolvable;
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		return matcher.findUnsolvableFactor(word);
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		return matcher.findUnsolvableFactor(word);
+	}
+
+	private int slot(long bits, int length) {
+		// the high bits of the product depend on all bits of the word
+		return (int) (((bits + length) * 0x9e3779b97f4a7c15L) >>> 33) & mask;
+	}
+
+	private static final class Entry {
+
+		final long bits;
+		final int length;
+		final boolean unsolvable;
+
+		Entry(long bits, int length, boolean unsolvable) {
+			this.bits = bits;
+			this.length = length;
+			this.unsolvable = unsolvable;
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,223 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long running service that classifies binary words for other processes, so
+ * that they do not pay for the start of a JVM and the setup of a matcher on
+ * every call. The server listens on the loopback interface and serves every
+ * connection on its own thread.
+ *
+ * <p>
+ * The protocol is line based. A client sends one word per line and receives
+ * one line per word in the same order: "1" if the word is unsolvable, "0" if
+ * it is solvable and "!" followed by a message if the line is no binary word.
+ * Clients may send any number of words before they read the answers. The
+ * server collects the lines that have already arrived, up to
+ * {@value #MAX_BATCH}, classifies them with
+ * {@link UnsolvableBinwordMatcher#classify(String[])} and writes all answers
+ * at once.
+ * </p>
+ */
+public class ClassificationServer implements Closeable {
+
+	/**
+	 * Port that {@link #main(String[])} listens on by default.
+	 */
+	public static final int DEFAULT_PORT = 7755;
+
+	/**
+	 * Maximum number of words that are classified together.
+	 */
+	public static final int MAX_BATCH = 1024;
+
+	private final UnsolvableBinwordMatcher matcher;
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor;
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Binds the server to a port on the loopback interface. Connections are
+	 * accepted after {@link #start()}.
+	 *
+	 * @param matcher
+	 *                thread-safe matcher that classifies the words
+	 * @param port
+	 *                port to listen on, or 0 for any free port
+	 * @throws IOException
+	 *                 if the port cannot be bound
+	 */
+	public ClassificationServer(UnsolvableBinwordMatcher matcher, int port) throws IOException {
+		this.matcher = matcher;
+		this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			final Thread thread = new Thread(runnable, "classification-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Starts accepting connections in the background.
+	 */
+	public void start() {
+		executor.execute(this::acceptConnections);
+	}
+
+	/**
+	 * Stops accepting connections and closes the open ones.
+	 */
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		for (Socket socket : connections) {
+			socket.close();
+		}
+		executor.shutdown();
+	}
+
+	private void acceptConnections() {
+		while (!serverSocket.isClosed()) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				// the server socket was closed
+				return;
+			}
+			connections.add(socket);
+			executor.execute(() -> serve(socket));
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),
+						StandardCharsets.ISO_8859_1));
+				Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(),
+						StandardCharsets.ISO_8859_1))) {
+			s.setTcpNoDelay(true);
+			final List<String> batch = new ArrayList<>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				// take the lines that have already arrived, a line that
+				// has only partly arrived is waited for
+				batch.add(line);
+				while (batch.size() < MAX_BATCH && in.ready() && (line = in.readLine()) != null) {
+					batch.add(line);
+				}
+				answer(batch, out);
+				out.flush();
+				batch.clear();
+			}
+		} catch (SocketException e) {
+			// the client or close() closed the connection
+		} catch (IOException e) {
+			System.err.println("Connection failed: " + e);
+		} finally {
+			connections.remove(socket);
+		}
+	}
+
+	/**
+	 * Classifies the words of a batch and writes one answer per word.
+	 */
+	private void answer(List<String> batch, Writer out) throws IOException {
+		final List<String> words = new ArrayList<>(batch.size());
+		for (String line : batch) {
+			if (isBinaryWord(line)) {
+				words.add(line);
+			}
+		}
+		final BitSet unsolvable = matcher.classify(words.toArray(new String[words.size()]));
+		int word = 0;
+		for (String line : batch) {
+			if (isBinaryWord(line)) {
+				out.write(unsolvable.get(word++) ? "1\n" : "0\n");
+			} else {
+				out.write("!Not a binary word: '" + line + "'\n");
+			}
+		}
+	}
+
+	private static boolean isBinaryWord(String line) {
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (c != 'a' && c != 'b') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs a server until the process is killed.
+	 *
+	 * @param args
+	 *                optional port and simple class name of the matcher,
+	 *                which needs a constructor without parameters
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length > 2) {
+			System.err.println("Usage: ClassificationServer [<port> [<matcher>]]");
+			System.exit(1);
+		}
+		final int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		final UnsolvableBinwordMatcher matcher = args.length > 1
+				? (UnsolvableBinwordMatcher) Class.forName("uniol.matcher." + args[1])
+						.getDeclaredConstructor().newInstance()
+				: new PatternUBM();
+		final ClassificationServer server = new ClassificationServer(matcher, port);
+		System.out.println("Classifying with " + matcher.getClass().getSimpleName() + " on port "
+				+ server.getPort());
+		// the connection threads are daemons, so accept on the main thread
+		server.acceptConnections();
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
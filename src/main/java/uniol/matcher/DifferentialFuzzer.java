@@ -0,0 +1,747 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+/**
+ * Differential tester that runs several matchers on the same generated words
+ * and reports every word on which they disagree. Every word is classified
+ * through each {@link EntryPoint} of every matcher, and two entry points of
+ * the same matcher that disagree count like two matchers that disagree. A
+ * disagreement is shrunk to a word from which no letter can be removed without
+ * all results agreeing again. The words are generated and classified in chunks
+ * on a {@link ForkJoinPool}, so the matchers have to be thread-safe.
+ *
+ * <p>
+ * A matcher that throws an exception, or returns a factor that it does not
+ * classify as unsolvable itself, counts as disagreeing with the ones that
+ * return a result. The report contains the throughput of every entry point of
+ * every matcher in words per second of the time spent in it, summed over all
+ * worker threads.
+ * </p>
+ */
+public class DifferentialFuzzer {
+
+	/**
+	 * Number of words that are generated and classified in one task.
+	 */
+	static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * Maximum number of disagreements in a report.
+	 */
+	public static final int MAX_DISAGREEMENTS = 16;
+
+	/**
+	 * Ways to generate the words of a run.
+	 */
+	public enum Source {
+		/**
+		 * Words with a uniformly random length up to the maximum and
+		 * random letters.
+		 */
+		RANDOM,
+		/**
+		 * All words in order of length and then of the packed value, so
+		 * that word i of the run is the same in every run. The maximum
+		 * length is ignored.
+		 */
+		EXHAUSTIVE,
+		/**
+		 * Seed words with one to three random changes: a flipped letter,
+		 * an inserted or deleted letter, or random letters before or
+		 * after the word up to the maximum length.
+		 */
+		MUTATED
+	}
+
+	/**
+	 * Methods of {@link UnsolvableBinwordMatcher} through which the words
+	 * are classified. The packed ones only take words of at most
+	 * {@link BinaryWord#MAX_PACKED_LENGTH} letters. The factor methods
+	 * classify a word as unsolvable if they return a factor, and their
+	 * result is null if the factor is not an unsolvable factor of the word.
+	 */
+	public enum EntryPoint {
+		/**
+		 * {@link UnsolvableBinwordMatcher#isUnsolvableBinaryWord(String)}
+		 */
+		STRING("string"),
+		/**
+		 * {@link UnsolvableBinwordMatcher#isUnsolvableBinaryWord(BinaryWord)}
+		 */
+		BINARY_WORD("binaryWord"),
+		/**
+		 * {@link UnsolvableBinwordMatcher#isUnsolvableBinaryWord(long, int)}
+		 */
+		PACKED("packed"),
+		/**
+		 * {@link UnsolvableBinwordMatcher#classify(long[], int, long[])}
+		 * with all words of a chunk that have the same length
+		 */
+		BATCH("batch"),
+		/**
+		 * {@link UnsolvableBinwordMatcher#classify(String[])} with all
+		 * words of a chunk
+		 */
+		STRING_BATCH("stringBatch"),
+		/**
+		 * {@link UnsolvableBinwordMatcher#findUnsolvableFactor(String)}
+		 */
+		FACTOR("factor"),
+		/**
+		 * {@link UnsolvableBinwordMatcher#findUnsolvableFactor(BinaryWord)}
+		 */
+		BINARY_WORD_FACTOR("binaryWordFactor");
+
+		private final String key;
+
+		private EntryPoint(String key) {
+			this.key = key;
+		}
+
+		/**
+		 * Returns true if the entry point takes packed words.
+		 */
+		public boolean isPacked() {
+			return this == PACKED || this == BATCH;
+		}
+
+		/**
+		 * Returns true if the entry point returns a factor.
+		 */
+		public boolean isFactor() {
+			return this == FACTOR || this == BINARY_WORD_FACTOR;
+		}
+
+		/**
+		 * Returns true if words of the given length can be classified
+		 * through this entry point.
+		 */
+		public boolean accepts(int length) {
+			return !isPacked() || length <= BinaryWord.MAX_PACKED_LENGTH;
+		}
+	}
+
+	private static final EntryPoint[] ENTRY_POINTS = EntryPoint.values();
+
+	private final Map<String, UnsolvableBinwordMatcher> matchers;
+	private final List<String> names;
+	// name of every result column, column m * ENTRY_POINTS.length + e is
+	// entry point e of matcher m
+	private final List<String> columns = new ArrayList<>();
+	private final List<String> seeds;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a fuzzer that runs on the common pool.
+	 */
+	public DifferentialFuzzer(Map<String, UnsolvableBinwordMatcher> matchers, List<String> seeds) {
+		this(matchers, seeds, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param matchers
+	 *                thread-safe matchers by name, at least two
+	 * @param seeds
+	 *                words that {@link Source#MUTATED} starts from, e.g.
+	 *                minimal unsolvable words
+	 * @param pool
+	 *                pool that runs the chunk tasks
+	 */
+	public DifferentialFuzzer(Map<String, UnsolvableBinwordMatcher> matchers, List<String> seeds,
+			ForkJoinPool pool) {
+		if (matchers.size() < 2) {
+			throw new IllegalArgumentException("At least two matchers are needed");
+		}
+		this.matchers = new LinkedHashMap<>(matchers);
+		this.names = new ArrayList<>(matchers.keySet());
+		this.seeds = new ArrayList<>(seeds);
+		this.pool = pool;
+		for (String name : names) {
+			for (EntryPoint entryPoint : ENTRY_POINTS) {
+				columns.add(name + "." + entryPoint.key);
+			}
+		}
+	}
+
+	/**
+	 * Generates words and classifies them through every entry point of
+	 * every matcher.
+	 *
+	 * @param source
+	 *                way to generate the words
+	 * @param count
+	 *                number of words
+	 * @param maxLength
+	 *                maximum length of random words and of the letters
+	 *                added to mutated words
+	 * @param seed
+	 *                seed of the random generator, runs with the same
+	 *                arguments produce the same words
+	 */
+	public Report run(Source source, int count, int maxLength, long seed) {
+		if (source == Source.MUTATED && seeds.isEmpty()) {
+			throw new IllegalStateException("No seed words to mutate");
+		}
+		final List<ChunkTask> chunks = new ArrayList<>();
+		for (int start = 0; start < count; start += CHUNK_SIZE) {
+			chunks.add(new ChunkTask(source, start, Math.min(CHUNK_SIZE, count - start), maxLength, seed));
+		}
+		for (ChunkTask chunk : chunks) {
+			pool.execute(chunk);
+		}
+		final long[] nanos = new long[columns.size()];
+		final long[] classified = new long[columns.size()];
+		final List<String> words = new ArrayList<>();
+		for (ChunkTask chunk : chunks) {
+			chunk.join();
+			for (int c = 0; c < nanos.length; c++) {
+				nanos[c] += chunk.nanos[c];
+				classified[c] += chunk.classified[c];
+			}
+			words.addAll(chunk.disagreements);
+		}
+
+		// shrinking is sequential, a failing matcher tends to fail often
+		final List<Disagreement> disagreements = new ArrayList<>();
+		for (String word : words.subList(0, Math.min(words.size(), MAX_DISAGREEMENTS))) {
+			final String shrunk = shrink(word);
+			disagreements.add(new Disagreement(word, shrunk, classify(shrunk)));
+		}
+		final Map<String, Double> throughput = new LinkedHashMap<>();
+		for (int c = 0; c < nanos.length; c++) {
+			throughput.put(columns.get(c), nanos[c] == 0 ? 0 : classified[c] * 1e9 / nanos[c]);
+		}
+		return new Report(source, count, words.size(), throughput, disagreements);
+	}
+
+	/**
+	 * Returns word i of the exhaustive order.
+	 */
+	static String exhaustiveWord(long index) {
+		// the words of length n have the indices 2^n - 1 to 2^(n+1) - 2
+		final int length = Long.SIZE - 1 - Long.numberOfLeadingZeros(index + 1);
+		final long bits = index + 1 - (1L << length);
+		final char[] word = new char[length];
+		for (int i = 0; i < length; i++) {
+			word[i] = (bits >>> i & 1) == 0 ? 'a' : 'b';
+		}
+		return new String(word);
+	}
+
+	private String randomWord(Random random, int maxLength) {
+		return randomLetters(random, random.nextInt(maxLength + 1));
+	}
+
+	private String mutatedWord(Random random, int maxLength) {
+		final StringBuilder word = new StringBuilder(seeds.get(random.nextInt(seeds.size())));
+		for (int changes = 1 + random.nextInt(3); changes > 0; changes--) {
+			final int position = random.nextInt(word.length() + 1);
+			switch (random.nextInt(5)) {
+			case 0:
+				if (position < word.length()) {
+					word.setCharAt(position, word.charAt(position) == 'a' ? 'b' : 'a');
+				}
+				break;
+			case 1:
+				word.insert(position, random.nextBoolean() ? 'a' : 'b');
+				break;
+			case 2:
+				if (position < word.length()) {
+					word.deleteCharAt(position);
+				}
+				break;
+			case 3:
+				word.insert(0, randomWord(random, maxLength));
+				break;
+			default:
+				word.append(randomWord(random, maxLength));
+				break;
+			}
+		}
+		return word.toString();
+	}
+
+	private static String randomLetters(Random random, int length) {
+		final char[] word = new char[length];
+		for (int i = 0; i < length; i++) {
+			word[i] = random.nextBoolean() ? 'a' : 'b';
+		}
+		return new String(word);
+	}
+
+	/**
+	 * Returns the results of all entry points of all matchers for the word,
+	 * null for an entry point that throws an exception, returns an invalid
+	 * factor or does not accept the word.
+	 */
+	private Boolean[] classify(String word) {
+		final BinaryWord binaryWord = BinaryWord.valueOf(word);
+		final Boolean[] results = new Boolean[columns.size()];
+		for (int m = 0; m < names.size(); m++) {
+			for (EntryPoint entryPoint : ENTRY_POINTS) {
+				if (entryPoint.accepts(word.length())) {
+					results[m * ENTRY_POINTS.length + entryPoint.ordinal()] = classify(
+							matchers.get(names.get(m)), entryPoint, word, binaryWord);
+				}
+			}
+		}
+		return results;
+	}
+
+	private static Boolean classify(UnsolvableBinwordMatcher matcher, EntryPoint entryPoint, String word,
+			BinaryWord binaryWord) {
+		try {
+			switch (entryPoint) {
+			case STRING:
+				return matcher.isUnsolvableBinaryWord(word);
+			case BINARY_WORD:
+				return matcher.isUnsolvableBinaryWord(binaryWord);
+			case PACKED:
+				return matcher.isUnsolvableBinaryWord(binaryWord.toLong(), binaryWord.length);
+			case BATCH:
+				final long[] result = new long[1];
+				matcher.classify(new long[] { binaryWord.toLong() }, binaryWord.length, result);
+				return result[0] != 0;
+			case STRING_BATCH:
+				return matcher.classify(new String[] { word }).get(0);
+			default:
+				return checkFactor(matcher, word, findFactor(matcher, entryPoint, word, binaryWord));
+			}
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static UnsolvableFactor findFactor(UnsolvableBinwordMatcher matcher, EntryPoint entryPoint, String word,
+			BinaryWord binaryWord) {
+		if (entryPoint == EntryPoint.FACTOR) {
+			return matcher.findUnsolvableFactor(word);
+		} else {
+			return matcher.findUnsolvableFactor(binaryWord);
+		}
+	}
+
+	/**
+	 * Returns true if a factor was found and false if not, or null if the
+	 * factor lies outside of the word or the matcher does not classify it
+	 * as unsolvable.
+	 */
+	private static Boolean checkFactor(UnsolvableBinwordMatcher matcher, String word, UnsolvableFactor factor) {
+		if (factor == null) {
+			return false;
+		}
+		if (factor.getStart() < 0 || factor.getEnd() > word.length() || factor.getStart() >= factor.getEnd()) {
+			return null;
+		}
+		try {
+			return matcher.isUnsolvableBinaryWord(word.substring(factor.getStart(), factor.getEnd())) ? true
+					: null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the results of the entry points that accept a word of
+	 * the given length differ, the string entry point of the first matcher
+	 * accepts every word.
+	 */
+	private boolean disagree(Boolean[] results, int length) {
+		for (int c = 1; c < results.length; c++) {
+			if (entryPoint(c).accepts(length) && !Objects.equals(results[c], results[0])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static EntryPoint entryPoint(int column) {
+		return ENTRY_POINTS[column % ENTRY_POINTS.length];
+	}
+
+	private UnsolvableBinwordMatcher matcher(int column) {
+		return matchers.get(names.get(column / ENTRY_POINTS.length));
+	}
+
+	private boolean disagree(String word) {
+		return disagree(classify(word), word.length());
+	}
+
+	/**
+	 * Removes blocks of letters from a word as long as the matchers still
+	 * disagree, halving the block size down to single letters.
+	 */
+	String shrink(String word) {
+		int block = Math.max(1, word.length() / 2);
+		while (true) {
+			boolean removed = false;
+			for (int start = 0; start + block <= word.length();) {
+				final String candidate = word.substring(0, start) + word.substring(start + block);
+				if (disagree(candidate)) {
+					word = candidate;
+					removed = true;
+				} else {
+					start += block;
+				}
+			}
+			if (block > 1) {
+				block = Math.max(1, block / 2);
+			} else if (!removed) {
+				return word;
+			}
+		}
+	}
+
+	private class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Source source;
+		private final int start;
+		private final int count;
+		private final int maxLength;
+		private final long seed;
+		final long[] nanos = new long[columns.size()];
+		final long[] classified = new long[columns.size()];
+		final List<String> disagreements = new ArrayList<>();
+
+		ChunkTask(Source source, int start, int count, int maxLength, long seed) {
+			this.source = source;
+			this.start = start;
+			this.count = count;
+			this.maxLength = maxLength;
+			this.seed = seed;
+		}
+
+		@Override
+		protected void compute() {
+			final Random random = new Random(seed * 31 + start);
+			final String[] words = new String[count];
+			for (int i = 0; i < count; i++) {
+				switch (source) {
+				case EXHAUSTIVE:
+					words[i] = exhaustiveWord(start + i);
+					break;
+				case MUTATED:
+					words[i] = mutatedWord(random, maxLength);
+					break;
+				default:
+					words[i] = randomWord(random, maxLength);
+					break;
+				}
+			}
+
+			// the words are packed before any matcher is timed, the
+			// batches hold the indices of the packable words by length
+			final BinaryWord[] binaryWords = new BinaryWord[count];
+			final int[] batchSize = new int[BinaryWord.MAX_PACKED_LENGTH + 1];
+			int packable = 0;
+			for (int i = 0; i < count; i++) {
+				binaryWords[i] = BinaryWord.valueOf(words[i]);
+				if (words[i].length() <= BinaryWord.MAX_PACKED_LENGTH) {
+					batchSize[words[i].length()]++;
+					packable++;
+				}
+			}
+			final int[][] batches = new int[batchSize.length][];
+			for (int length = 0; length < batches.length; length++) {
+				batches[length] = new int[batchSize[length]];
+				batchSize[length] = 0;
+			}
+			for (int i = 0; i < count; i++) {
+				final int length = words[i].length();
+				if (length <= BinaryWord.MAX_PACKED_LENGTH) {
+					batches[length][batchSize[length]++] = i;
+				}
+			}
+
+			final Boolean[][] results = new Boolean[count][nanos.length];
+			final UnsolvableFactor[] factors = new UnsolvableFactor[count];
+			final boolean[] failed = new boolean[count];
+			for (int c = 0; c < nanos.length; c++) {
+				final UnsolvableBinwordMatcher matcher = matcher(c);
+				final EntryPoint entryPoint = entryPoint(c);
+				final long begin = System.nanoTime();
+				if (entryPoint == EntryPoint.BATCH) {
+					for (int length = 0; length < batches.length; length++) {
+						classifyBatch(matcher, length, batches[length], binaryWords, results,
+								c);
+					}
+				} else if (entryPoint == EntryPoint.STRING_BATCH) {
+					classifyStrings(matcher, words, results, c);
+				} else if (entryPoint.isFactor()) {
+					for (int i = 0; i < count; i++) {
+						try {
+							factors[i] = findFactor(matcher, entryPoint, words[i],
+									binaryWords[i]);
+							failed[i] = false;
+						} catch (RuntimeException e) {
+							failed[i] = true;
+						}
+					}
+				} else {
+					for (int i = 0; i < count; i++) {
+						if (entryPoint.accepts(words[i].length())) {
+							results[i][c] = classify(matcher, entryPoint, words[i],
+									binaryWords[i]);
+						}
+					}
+				}
+				nanos[c] = System.nanoTime() - begin;
+				classified[c] = entryPoint.isPacked() ? packable : count;
+				if (entryPoint.isFactor()) {
+					// the factors are checked outside of the measured time
+					for (int i = 0; i < count; i++) {
+						results[i][c] = failed[i] ? null
+								: checkFactor(matcher, words[i], factors[i]);
+					}
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				if (disagree(results[i], words[i].length())) {
+					disagreements.add(words[i]);
+				}
+			}
+		}
+
+		/**
+		 * Classifies the words with the given indices, which all have the
+		 * given length, with a single call and stores the results in the
+		 * column.
+		 */
+		private void classifyBatch(UnsolvableBinwordMatcher matcher, int length, int[] batch,
+				BinaryWord[] binaryWords, Boolean[][] results, int column) {
+			if (batch.length == 0) {
+				return;
+			}
+			final long[] packed = new long[batch.length];
+			for (int j = 0; j < batch.length; j++) {
+				packed[j] = binaryWords[batch[j]].toLong();
+			}
+			final long[] result = new long[BinaryWord.wordCount(batch.length)];
+			try {
+				matcher.classify(packed, length, result);
+			} catch (RuntimeException e) {
+				// retry every word on its own, so that only the words
+				// that fail get no result, like when they are shrunk
+				for (int j = 0; j < batch.length; j++) {
+					results[batch[j]][column] = classify(matcher, EntryPoint.BATCH, null,
+							binaryWords[batch[j]]);
+				}
+				return;
+			}
+			for (int j = 0; j < batch.length; j++) {
+				results[batch[j]][column] = (result[j >>> 6] >>> j & 1) != 0;
+			}
+		}
+
+		/**
+		 * Classifies all words of the chunk with a single call and stores
+		 * the results in the column.
+		 */
+		private void classifyStrings(UnsolvableBinwordMatcher matcher, String[] words, Boolean[][] results,
+				int column) {
+			final BitSet result;
+			try {
+				result = matcher.classify(words);
+			} catch (RuntimeException e) {
+				// retry every word on its own, like in a batch
+				for (int i = 0; i < words.length; i++) {
+					results[i][column] = classify(matcher, EntryPoint.STRING_BATCH, words[i], null);
+				}
+				return;
+			}
+			for (int i = 0; i < words.length; i++) {
+				results[i][column] = result.get(i);
+			}
+		}
+
+	}
+
+	/**
+	 * A word on which the matchers or the entry points of a matcher
+	 * disagree.
+	 */
+	public final class Disagreement {
+
+		private final String word;
+		private final String shrunkWord;
+		private final Map<String, Boolean> results;
+
+		Disagreement(String word, String shrunkWord, Boolean[] results) {
+			this.word = word;
+			this.shrunkWord = shrunkWord;
+			final Map<String, Boolean> map = new LinkedHashMap<>();
+			for (int c = 0; c < results.length; c++) {
+				if (entryPoint(c).accepts(shrunkWord.length())) {
+					map.put(columns.get(c), results[c]);
+				}
+			}
+			this.results = Collections.unmodifiableMap(map);
+		}
+
+		/**
+		 * Returns the generated word.
+		 */
+		public String getWord() {
+			return word;
+		}
+
+		/**
+		 * Returns the shrunk word, on which the matchers still disagree.
+		 */
+		public String getShrunkWord() {
+			return shrunkWord;
+		}
+
+		/**
+		 * Returns the results for the shrunk word by matcher and entry
+		 * point, e.g. "PatternUBM.packed", null for an entry point that
+		 * threw an exception or returned an invalid factor. Entry points
+		 * that do not accept the word are left out.
+		 */
+		public Map<String, Boolean> getResults() {
+			return results;
+		}
+
+		@Override
+		public String toString() {
+			return "'" + shrunkWord + "' (shrunk from " + word.length() + " letters): " + results;
+		}
+
+	}
+
+	/**
+	 * Outcome of a run.
+	 */
+	public static final class Report {
+
+		private final Source source;
+		private final int wordCount;
+		private final int disagreementCount;
+		private final Map<String, Double> throughput;
+		private final List<Disagreement> disagreements;
+
+		Report(Source source, int wordCount, int disagreementCount, Map<String, Double> throughput,
+				List<Disagreement> disagreements) {
+			this.source = source;
+			this.wordCount = wordCount;
+			this.disagreementCount = disagreementCount;
+			this.throughput = Collections.unmodifiableMap(throughput);
+			this.disagreements = Collections.unmodifiableList(disagreements);
+		}
+
+		public int getWordCount() {
+			return wordCount;
+		}
+
+		/**
+		 * Returns the number of words on which the matchers disagree.
+		 */
+		public int getDisagreementCount() {
+			return disagreementCount;
+		}
+
+		/**
+		 * Returns the classified words per second of every entry point
+		 * of every matcher, e.g. "PatternUBM.batch".
+		 */
+		public Map<String, Double> getThroughput() {
+			return throughput;
+		}
+
+		/**
+		 * Returns the first {@value DifferentialFuzzer#MAX_DISAGREEMENTS}
+		 * disagreements.
+		 */
+		public List<Disagreement> getDisagreements() {
+			return disagreements;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(source).append(": ").append(wordCount).append(" words, ").append(disagreementCount)
+					.append(" disagreements\n");
+			throughput.forEach((name, rate) -> sb.append(String.format("  %-30s %,15.0f words/s%n", name,
+					rate)));
+			for (Disagreement disagreement : disagreements) {
+				sb.append("  ").append(disagreement).append('\n');
+			}
+			return sb.toString();
+		}
+
+	}
+
+	/**
+	 * Compares all implementations on words of every source.
+	 *
+	 * @param args
+	 *                number of words per source and maximum word length
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Usage: DifferentialFuzzer <words per source> <max length>");
+			System.exit(1);
+		}
+		final int count = Integer.parseInt(args[0]);
+		final int maxLength = Integer.parseInt(args[1]);
+		// longer minimal words take long to generate and are rarely hit
+		final List<String> minimalWords = new MinimalUnsolvableWordGenerator(Math.min(maxLength, 40)).generate()
+				.stream().map(BinaryWord::toString).collect(Collectors.toList());
+
+		final Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", new PatternUBM());
+		matchers.put("JavaRegexUBM", new JavaRegexUBM());
+		matchers.put("LetterCountingUBM", new LetterCountingUBM());
+		matchers.put("RepetitionUBM", new RepetitionUBM());
+		matchers.put("AutomatonUBM", new AutomatonUBM(minimalWords));
+		matchers.put("LookupTableUBM", new LookupTableUBM());
+		matchers.put("HybridUBM", new HybridUBM());
+		matchers.put("CachingUBM", new CachingUBM(new PatternUBM()));
+
+		final DifferentialFuzzer fuzzer = new DifferentialFuzzer(matchers, minimalWords);
+		long seed = System.nanoTime();
+		System.out.println("Seed " + seed);
+		boolean agree = true;
+		for (Source source : Source.values()) {
+			final Report report = fuzzer.run(source, count, maxLength, seed++);
+			System.out.print(report);
+			agree &= report.getDisagreementCount() == 0;
+		}
+		System.exit(agree ? 0 : 2);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,126 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+/**
+ * Implementation that picks the cheapest algorithm for every word. Words with
+ * less than {@value #MIN_UNSOLVABLE_LENGTH} letters are always solvable, and
+ * words that fit into a <code>long</code> are matched bit parallel by
+ * {@link PatternUBM}. Longer words are first searched for pattern I in linear
+ * time. The search for pattern II of {@link PatternUBM} starts a linear scan at
+ * every site where the letter changes, while {@link RepetitionUBM} takes
+ * O(n log n) time with a large constant factor, so the second stage depends on
+ * the number of sites.
+ */
+public class HybridUBM implements UnsolvableBinwordMatcher {
+
+	/**
+	 * Length of the shortest unsolvable word abbaa.
+	 */
+	static final int MIN_UNSOLVABLE_LENGTH = 5;
+
+	/**
+	 * Number of sites up to which {@link PatternUBM} searches pattern II.
+	 * Measured on solvable words with 100 to 6400 letters, a scan costs
+	 * about 3 ns per letter and site, and {@link RepetitionUBM} about
+	 * 0.4 µs per letter.
+	 */
+	static final int SITE_THRESHOLD = 128;
+
+	private final PatternUBM pattern = new PatternUBM();
+	private final RepetitionUBM repetition = new RepetitionUBM();
+
+	@Override
+	public boolean isUnsolvableBinaryWord(String word) {
+		if (word.length() < MIN_UNSOLVABLE_LENGTH) {
+			return false;
+		}
+		return isUnsolvableBinaryWord(BinaryWord.valueOf(word));
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		final int length = word.length;
+		if (length < MIN_UNSOLVABLE_LENGTH) {
+			return false;
+		}
+		if (length <= BinaryWord.MAX_PACKED_LENGTH) {
+			return pattern.isUnsolvableBinaryWord(word.toLong(), length);
+		}
+		if (pattern.step1(word.bits, length)) {
+			return true;
+		}
+		if (countSites(word.bits, length) <= SITE_THRESHOLD) {
+			return pattern.step2(word.bits, length);
+		}
+		return repetition.containsPatternII(word);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(long bits, int length) {
+		BinaryWord.checkPackedLength(length);
+		return length >= MIN_UNSOLVABLE_LENGTH && pattern.isUnsolvableBinaryWord(bits, length);
+	}
+
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		if (length < MIN_UNSOLVABLE_LENGTH) {
+			BinaryWord.checkBatch(words, length, result);
+			return;
+		}
+		pattern.classify(words, length, result);
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		return findUnsolvableFactor(BinaryWord.valueOf(word));
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		final int length = word.length;
+		if (length <= BinaryWord.MAX_PACKED_LENGTH || countSites(word.bits, length) <= SITE_THRESHOLD) {
+			return pattern.findUnsolvableFactor(word);
+		}
+		return repetition.findUnsolvableFactor(word);
+	}
+
+	/**
+	 * Returns the number of "ab" and "ba" sites, i.e. the number of indices
+	 * i with v[i] != v[i+1].
+	 */
+	static int countSites(long[] bits, int length) {
+		int sites = 0;
+		for (int k = 0; k * Long.SIZE < length - 1; k++) {
+			final long next = k + 1 < bits.length ? bits[k + 1] << (Long.SIZE - 1) : 0;
+			long changes = bits[k] ^ (bits[k] >>> 1 | next);
+			// only pairs whose second letter is inside the word
+			final int pairs = length - 1 - k * Long.SIZE;
+			if (pairs < Long.SIZE) {
+				changes &= BinaryWord.mask(pairs);
+			}
+			sites += Long.bitCount(changes);
+		}
+		return sites;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
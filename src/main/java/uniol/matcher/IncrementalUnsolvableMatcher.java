@@ -0,0 +1,394 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.Arrays;
+
+/**
+ * Stateful matcher that receives a binary word one letter at a time and
+ * reports as soon as the word becomes unsolvable. Instances are not
+ * thread-safe.
+ *
+ * <p>
+ * As long as the word is solvable, an unsolvable factor can only appear as a
+ * suffix that ends at the newly appended letter. Pattern I is decided from the
+ * positions of the last two occurrences of the appended letter. For pattern II
+ * <code>abw(baw)<sup>k</sup>a</code> the matcher keeps candidate pairs of an
+ * "ab" site i and a period p for which <code>v[i+p..i+p+1] = ba</code> and
+ * <code>v[i+2..]</code> has period p so far. Candidates are created when the
+ * appended letter completes a "ba" site and dropped at the first letter that
+ * breaks their period.
+ * </p>
+ *
+ * <p>
+ * Most candidates die within a few letters, so candidates with a period
+ * larger than {@value #LOOKAHEAD} + 1 are only created {@value #LOOKAHEAD}
+ * letters after their "ba" site, before they could first match. At that
+ * point only sites whose following {@value #LOOKAHEAD} letters equal the ones
+ * following the "ba" site can still be alive, and these are looked up in
+ * buckets keyed by those letters. The work per letter is therefore bounded by
+ * the number of live candidates instead of the number of sites in the word.
+ * </p>
+ */
+public class IncrementalUnsolvableMatcher {
+
+	/**
+	 * Number of letters after a site that are used as bucket key.
+	 */
+	static final int LOOKAHEAD = 8;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// letters of the word, see BinaryWord
+	private long[] bits;
+	private int length;
+
+	// positions of the last and second to last occurrence of each letter
+	private final int[] last = new int[2];
+	private final int[] prev = new int[2];
+
+	// sites[c][key] contains all positions i with v[i] = c != v[i+1]
+	// and v[i+2..i+1+LOOKAHEAD] = key in ascending order, buckets are
+	// allocated on first use
+	private final int[][][] sites = new int[2][1 << LOOKAHEAD][];
+	private final int[][] siteCount = new int[2][1 << LOOKAHEAD];
+
+	// live pattern II candidates as parallel arrays of site and period
+	private int[] candidateSite;
+	private int[] candidatePeriod;
+	private int candidateCount;
+
+	private int factorStart;
+	private int factorEnd;
+
+	// the changes of the appends from index logStart on are recorded for
+	// rollback: the overwritten prev entry and, for the candidates, the
+	// removal log size before the append and the candidate count after
+	// its removals, since the candidates it adds follow the survivors
+	private int logStart;
+	private int[] prevLog;
+	private int[] removalMark;
+	private int[] candidateMark;
+	// dropped candidates as index, site and period in order of removal
+	private int[] removedIndex;
+	private int[] removedSite;
+	private int[] removedPeriod;
+	private int removalCount;
+
+	public IncrementalUnsolvableMatcher() {
+		bits = new long[1];
+		candidateSite = new int[INITIAL_CAPACITY];
+		candidatePeriod = new int[INITIAL_CAPACITY];
+		prevLog = new int[0];
+		removalMark = new int[0];
+		candidateMark = new int[0];
+		removedIndex = new int[INITIAL_CAPACITY];
+		removedSite = new int[INITIAL_CAPACITY];
+		removedPeriod = new int[INITIAL_CAPACITY];
+		reset();
+	}
+
+	/**
+	 * Clears the word so that the matcher can be reused.
+	 */
+	public void reset() {
+		Arrays.fill(bits, 0);
+		length = 0;
+		Arrays.fill(last, -1);
+		Arrays.fill(prev, -1);
+		Arrays.fill(siteCount[0], 0);
+		Arrays.fill(siteCount[1], 0);
+		candidateCount = 0;
+		factorStart = -1;
+		factorEnd = -1;
+		logStart = Integer.MAX_VALUE;
+		removalCount = 0;
+	}
+
+	/**
+	 * Returns the current length as a checkpoint for
+	 * {@link #rollback(int)}. From the first checkpoint on, every append
+	 * records the changes it makes, which takes a few ints per letter and
+	 * per dropped candidate, until the matcher is reset.
+	 */
+	public int checkpoint() {
+		logStart = Math.min(logStart, length);
+		return length;
+	}
+
+	/**
+	 * Removes the letters after the given checkpoint, so that the matcher
+	 * is in the same state as when the checkpoint was taken. This takes
+	 * time proportional to the work of the removed appends.
+	 *
+	 * @param checkpoint
+	 *                a length returned by {@link #checkpoint()} since the
+	 *                last reset
+	 * @throws IllegalArgumentException
+	 *                 if the letters after the checkpoint were not
+	 *                 recorded
+	 */
+	public void rollback(int checkpoint) {
+		if (checkpoint < logStart || checkpoint > length) {
+			throw new IllegalArgumentException("Not a checkpoint: " + checkpoint);
+		}
+		while (length > checkpoint) {
+			final int pos = --length;
+			final int c = BinaryWord.bitAt(bits, pos);
+			if (factorEnd < 0 || pos <= factorEnd) {
+				if (pos == factorEnd) {
+					factorStart = -1;
+					factorEnd = -1;
+				}
+				undo(pos, c);
+			}
+			bits[pos >>> 6] &= ~(1L << pos);
+		}
+	}
+
+	/**
+	 * Reverts the changes of the append at the given index in the reverse
+	 * order of {@link #append(int)}, the letters up to the index are still
+	 * set.
+	 */
+	private void undo(int pos, int c) {
+		final int t = pos - 1 - LOOKAHEAD;
+		if (t >= 0 && BinaryWord.bitAt(bits, t) != BinaryWord.bitAt(bits, t + 1)) {
+			siteCount[BinaryWord.bitAt(bits, t)][key(t + 2)]--;
+		}
+		candidateCount = candidateMark[pos];
+		while (removalCount > removalMark[pos]) {
+			removalCount--;
+			final int k = removedIndex[removalCount];
+			candidateSite[candidateCount] = candidateSite[k];
+			candidatePeriod[candidateCount] = candidatePeriod[k];
+			candidateSite[k] = removedSite[removalCount];
+			candidatePeriod[k] = removedPeriod[removalCount];
+			candidateCount++;
+		}
+		last[c] = prev[c];
+		prev[c] = prevLog[pos];
+	}
+
+	/**
+	 * Appends a letter to the word.
+	 *
+	 * @param letter
+	 *                either 'a' or 'b'
+	 * @return true if the word is unsolvable after appending the letter
+	 */
+	public boolean append(char letter) {
+		if (letter == 'a') {
+			return append(0);
+		} else if (letter == 'b') {
+			return append(1);
+		} else {
+			throw new IllegalArgumentException("Not a binary letter: '" + letter + "'");
+		}
+	}
+
+	/**
+	 * Appends all letters of the given word.
+	 *
+	 * @return true if the word is unsolvable after appending the letters
+	 */
+	public boolean append(CharSequence word) {
+		for (int i = 0; i < word.length(); i++) {
+			append(word.charAt(i));
+		}
+		return isUnsolvable();
+	}
+
+	private boolean append(int c) {
+		final int pos = length;
+		if ((pos >>> 6) == bits.length) {
+			bits = Arrays.copyOf(bits, bits.length * 2);
+		}
+		if (c == 1) {
+			bits[pos >>> 6] |= 1L << pos;
+		}
+		length++;
+
+		if (factorEnd >= 0) {
+			// a word with an unsolvable factor stays unsolvable
+			return true;
+		}
+		final boolean log = pos >= logStart;
+		if (log && pos >= prevLog.length) {
+			final int capacity = Math.max(INITIAL_CAPACITY, 2 * pos);
+			prevLog = Arrays.copyOf(prevLog, capacity);
+			removalMark = Arrays.copyOf(removalMark, capacity);
+			candidateMark = Arrays.copyOf(candidateMark, capacity);
+		}
+
+		// pattern I: the appended letter is the third delimiter
+		int start = -1;
+		if (prev[c] >= 0 && last[c] - prev[c] - 1 > pos - last[c] - 1 + 2) {
+			start = prev[c];
+		}
+		if (log) {
+			prevLog[pos] = prev[c];
+			removalMark[pos] = removalCount;
+		}
+		prev[c] = last[c];
+		last[c] = pos;
+
+		// pattern II: check the candidates with the appended letter as
+		// final 'a', then drop the ones whose period breaks here
+		for (int k = 0; k < candidateCount;) {
+			final int i = candidateSite[k];
+			final int p = candidatePeriod[k];
+			if (i > start && BinaryWord.bitAt(bits, i) == c && pos - i >= 2 * p && (pos - i) % p == 0) {
+				start = i;
+			}
+			if (BinaryWord.bitAt(bits, pos - p) != c) {
+				if (log) {
+					logRemoval(k);
+				}
+				candidateCount--;
+				candidateSite[k] = candidateSite[candidateCount];
+				candidatePeriod[k] = candidatePeriod[candidateCount];
+			} else {
+				k++;
+			}
+		}
+
+		if (log) {
+			candidateMark[pos] = candidateCount;
+		}
+
+		if (pos > 0 && BinaryWord.bitAt(bits, pos - 1) != c) {
+			// v[pos-1..pos] is a "ba" site for all earlier sites i of
+			// the appended letter, the short periods start right away
+			// since they can match within the next LOOKAHEAD + 1 letters
+			for (int i = Math.max(0, pos - 2 - LOOKAHEAD); i <= pos - 3; i++) {
+				if (isSite(i, c)) {
+					addCandidate(i, pos - 1 - i);
+				}
+			}
+		}
+
+		final int t = pos - 1 - LOOKAHEAD;
+		if (t >= 0 && BinaryWord.bitAt(bits, t) != BinaryWord.bitAt(bits, t + 1)) {
+			// the letters following the site t are known now, so it
+			// can be filed into its bucket
+			final int y = BinaryWord.bitAt(bits, t);
+			final int key = key(t + 2);
+			addSite(y, key, t);
+
+			// and the long periods of the "ba" site t start now, with
+			// the sites that agree with it in the next LOOKAHEAD letters
+			final int x = 1 - y;
+			final int[] siteList = sites[x][key];
+			for (int k = 0; k < siteCount[x][key]; k++) {
+				final int i = siteList[k];
+				if (i >= t - 1 - LOOKAHEAD) {
+					break;
+				}
+				addCandidate(i, t - i);
+			}
+		}
+
+		if (start >= 0) {
+			factorStart = start;
+			factorEnd = pos;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean isSite(int i, int letter) {
+		return BinaryWord.bitAt(bits, i) == letter && BinaryWord.bitAt(bits, i + 1) != letter;
+	}
+
+	private int key(int start) {
+		return (int) BinaryWord.window(bits, start) & ((1 << LOOKAHEAD) - 1);
+	}
+
+	private void addSite(int letter, int key, int index) {
+		if (sites[letter][key] == null) {
+			sites[letter][key] = new int[INITIAL_CAPACITY];
+		} else if (siteCount[letter][key] == sites[letter][key].length) {
+			sites[letter][key] = Arrays.copyOf(sites[letter][key], sites[letter][key].length * 2);
+		}
+		sites[letter][key][siteCount[letter][key]++] = index;
+	}
+
+	private void addCandidate(int site, int period) {
+		if (candidateCount == candidateSite.length) {
+			candidateSite = Arrays.copyOf(candidateSite, candidateSite.length * 2);
+			candidatePeriod = Arrays.copyOf(candidatePeriod, candidatePeriod.length * 2);
+		}
+		candidateSite[candidateCount] = site;
+		candidatePeriod[candidateCount] = period;
+		candidateCount++;
+	}
+
+	private void logRemoval(int k) {
+		if (removalCount == removedIndex.length) {
+			removedIndex = Arrays.copyOf(removedIndex, removedIndex.length * 2);
+			removedSite = Arrays.copyOf(removedSite, removedSite.length * 2);
+			removedPeriod = Arrays.copyOf(removedPeriod, removedPeriod.length * 2);
+		}
+		removedIndex[removalCount] = k;
+		removedSite[removalCount] = candidateSite[k];
+		removedPeriod[removalCount] = candidatePeriod[k];
+		removalCount++;
+	}
+
+	/**
+	 * Returns true if the word contains an unsolvable factor.
+	 */
+	public boolean isUnsolvable() {
+		return factorEnd >= 0;
+	}
+
+	/**
+	 * Returns the start index of the first unsolvable factor, or -1 if the
+	 * word is solvable. The factor is the shortest unsolvable suffix of the
+	 * word at the time it first became unsolvable, i.e. a minimal
+	 * unsolvable word.
+	 */
+	public int getFactorStart() {
+		return factorStart;
+	}
+
+	/**
+	 * Returns the index of the letter with which the word first became
+	 * unsolvable, or -1 if the word is solvable.
+	 */
+	public int getFactorEnd() {
+		return factorEnd;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Returns a copy of the word received so far.
+	 */
+	public BinaryWord toBinaryWord() {
+		return BinaryWord.valueOf(bits, length);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
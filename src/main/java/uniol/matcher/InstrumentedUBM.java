@@ -0,0 +1,140 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matcher that records metrics about the calls to another matcher in the
+ * {@link Metrics} registry, under the simple class name of that matcher:
+ * <ul>
+ * <li><code>.words</code> and <code>.unsolvable</code> count the classified
+ * words,</li>
+ * <li><code>.latency</code> is a histogram of the time per call in
+ * nanoseconds, where a batch counts as one call,</li>
+ * <li><code>.length</code> is a histogram of the word lengths.</li>
+ * </ul>
+ * The metrics are recorded even if {@link Metrics#ENABLED} is false, use
+ * {@link Metrics#instrument(UnsolvableBinwordMatcher)} to wrap a matcher only
+ * if recording is enabled.
+ */
+public class InstrumentedUBM implements UnsolvableBinwordMatcher {
+
+	private final UnsolvableBinwordMatcher matcher;
+	private final LongAdder words;
+	private final LongAdder unsolvable;
+	private final LatencyHistogram latency;
+	private final LatencyHistogram length;
+
+	public InstrumentedUBM(UnsolvableBinwordMatcher matcher) {
+		this(matcher, matcher.getClass().getSimpleName());
+	}
+
+	/**
+	 * @param matcher
+	 *                matcher that classifies the words
+	 * @param name
+	 *                prefix of the metric names
+	 */
+	public InstrumentedUBM(UnsolvableBinwordMatcher matcher, String name) {
+		this.matcher = matcher;
+		this.words = Metrics.counter(name + ".words");
+		this.unsolvable = Metrics.counter(name + ".unsolvable");
+		this.latency = Metrics.histogram(name + ".latency");
+		this.length = Metrics.histogram(name + ".length");
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(String word) {
+		final long start = System.nanoTime();
+		final boolean result = matcher.isUnsolvableBinaryWord(word);
+		return record(start, word.length(), result);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		final long start = System.nanoTime();
+		final boolean result = matcher.isUnsolvableBinaryWord(word);
+		return record(start, word.length, result);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(long bits, int length) {
+		final long start = System.nanoTime();
+		final boolean result = matcher.isUnsolvableBinaryWord(bits, length);
+		return record(start, length, result);
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		final long start = System.nanoTime();
+		final UnsolvableFactor factor = matcher.findUnsolvableFactor(word);
+		record(start, word.length(), factor != null);
+		return factor;
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		final long start = System.nanoTime();
+		final UnsolvableFactor factor = matcher.findUnsolvableFactor(word);
+		record(start, word.length, factor != null);
+		return factor;
+	}
+
+	@Override
+	public BitSet classify(String[] words) {
+		final long start = System.nanoTime();
+		final BitSet result = matcher.classify(words);
+		latency.record(System.nanoTime() - start);
+		for (String word : words) {
+			length.record(word.length());
+		}
+		this.words.add(words.length);
+		unsolvable.add(result.cardinality());
+		return result;
+	}
+
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		final long start = System.nanoTime();
+		matcher.classify(words, length, result);
+		latency.record(System.nanoTime() - start);
+		this.length.record(length, words.length);
+		this.words.add(words.length);
+		for (int i = 0; i < words.length; i += Long.SIZE) {
+			final int count = Math.min(Long.SIZE, words.length - i);
+			unsolvable.add(Long.bitCount(result[i >>> 6] & BinaryWord.mask(count)));
+		}
+	}
+
+	private boolean record(long start, int wordLength, boolean result) {
+		latency.record(System.nanoTime() - start);
+		length.record(wordLength);
+		words.increment();
+		if (result) {
+			unsolvable.increment();
+		}
+		return result;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
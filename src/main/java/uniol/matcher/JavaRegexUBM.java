@@ -19,6 +19,7 @@
 
 package uniol.matcher;
 
+import java.util.BitSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +31,11 @@ public class JavaRegexUBM implements UnsolvableBinwordMatcher {
 	private final Pattern patternA = Pattern.compile("ab([ab]*)b*(ba\\1)+a");
 	private final Pattern patternB = Pattern.compile("ba([ba]*)a*(ab\\1)+b");
 
+	// the patterns Ia or IIa and Ib or IIb with one group per parameter,
+	// so that a match is a factor with known parameters
+	private final Pattern factorA = Pattern.compile("a(b*)(bbb+)a\\1a|ab([ab]*)(?:ba\\3)+a");
+	private final Pattern factorB = Pattern.compile("b(a*)(aaa+)b\\1b|ba([ab]*)(?:ab\\3)+b");
+
 	@Override
 	public boolean isUnsolvableBinaryWord(String word) {
 		final Matcher matcherA = patternA.matcher(word);
@@ -37,6 +43,81 @@ public class JavaRegexUBM implements UnsolvableBinwordMatcher {
 		return matcherA.find() || matcherB.find();
 	}
 
+	/**
+	 * Finds the factor with the regular expressions for the exact patterns,
+	 * whose groups give the parameters of the match.
+	 */
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		UnsolvableFactor factor = find(factorA.matcher(word), 0);
+		if (factor == null) {
+			factor = find(factorB.matcher(word), 1);
+		}
+		return factor;
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		return findUnsolvableFactor(word.toString());
+	}
+
+	/**
+	 * Returns the first match of a factor pattern.
+	 *
+	 * @param a
+	 *                letter 'a' of the pattern, 0 for 'a' and 1 for 'b'
+	 */
+	private static UnsolvableFactor find(Matcher matcher, int a) {
+		if (!matcher.find()) {
+			return null;
+		}
+		if (matcher.group(1) != null) {
+			final int y = matcher.group(1).length();
+			return UnsolvableFactor.patternI(a, matcher.start(), y + matcher.group(2).length(), y);
+		}
+		final int wLength = matcher.group(3).length();
+		final int k = (matcher.end() - 1 - matcher.end(3)) / (wLength + 2);
+		return UnsolvableFactor.patternII(a, matcher.start(), wLength, k);
+	}
+
+	/**
+	 * Classifies all words with the same two {@link Matcher} instances,
+	 * which are reset for every word.
+	 */
+	@Override
+	public BitSet classify(String[] words) {
+		final BitSet result = new BitSet(words.length);
+		final Matcher matcherA = patternA.matcher("");
+		final Matcher matcherB = patternB.matcher("");
+		for (int i = 0; i < words.length; i++) {
+			if (matcherA.reset(words[i]).find() || matcherB.reset(words[i]).find()) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Classifies all words with the same two {@link Matcher} instances,
+	 * which read the letters from a single reused buffer.
+	 */
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		BinaryWord.checkBatch(words, length, result);
+		final StringBuilder buffer = new StringBuilder(length);
+		final Matcher matcherA = patternA.matcher(buffer);
+		final Matcher matcherB = patternB.matcher(buffer);
+		for (int i = 0; i < words.length; i++) {
+			buffer.setLength(0);
+			for (int j = 0; j < length; j++) {
+				buffer.append(((words[i] >>> j) & 1) == 0 ? 'a' : 'b');
+			}
+			if (matcherA.reset(buffer).find() || matcherB.reset(buffer).find()) {
+				result[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
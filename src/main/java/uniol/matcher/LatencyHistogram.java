@@ -0,0 +1,191 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values such as latencies in nanoseconds or word
+ * lengths, in the style of an HDR histogram. Values below
+ * {@value #EXACT_LIMIT} have their own bucket, larger values share a bucket
+ * with the values of the same highest bit and the same next
+ * {@value #SUB_BUCKET_BITS} bits, which bounds the relative error by 1/8.
+ * Every bucket is a {@link LongAdder}, so recording from many threads does not
+ * contend on a single counter.
+ */
+public class LatencyHistogram {
+
+	static final int SUB_BUCKET_BITS = 3;
+	static final int EXACT_LIMIT = 2 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int EXACT_BITS = SUB_BUCKET_BITS + 1;
+	private static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a value, negative values are recorded as 0.
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		buckets[bucket(value)].increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Records a value the given number of times.
+	 */
+	public void record(long value, long count) {
+		if (count > 0) {
+			value = Math.max(0, value);
+			buckets[bucket(value)].add(count);
+			total.add(value * count);
+			max.accumulate(value);
+		}
+	}
+
+	/**
+	 * Removes all recorded values.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		total.reset();
+		max.reset();
+	}
+
+	/**
+	 * Returns the recorded values at this moment. Values that are recorded
+	 * while the snapshot is taken may be partly included.
+	 */
+	public Snapshot snapshot() {
+		final long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			count += counts[i];
+		}
+		return new Snapshot(counts, count, total.sum(), max.get());
+	}
+
+	static int bucket(long value) {
+		if (value < EXACT_LIMIT) {
+			return (int) value;
+		}
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return EXACT_LIMIT + (exponent - EXACT_BITS) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the largest value of the given bucket.
+	 */
+	static long highestValue(int bucket) {
+		if (bucket < EXACT_LIMIT) {
+			return bucket;
+		}
+		final int exponent = (bucket - EXACT_LIMIT) / SUB_BUCKETS + EXACT_BITS;
+		final long sub = (bucket - EXACT_LIMIT) % SUB_BUCKETS;
+		final long lowest = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * Immutable copy of the values of a histogram.
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final long total;
+		private final long max;
+
+		Snapshot(long[] counts, long count, long total, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.total = total;
+			this.max = max;
+		}
+
+		/**
+		 * Returns the number of recorded values.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the mean of the recorded values, or 0 if there are none.
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double) total / count;
+		}
+
+		/**
+		 * Returns the largest recorded value.
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns a value that the given fraction of the recorded values
+		 * does not exceed, rounded up to the end of its bucket but not
+		 * beyond the largest value. Returns 0 if there are no values.
+		 *
+		 * @param quantile
+		 *                number between 0 and 1
+		 */
+		public long getValueAtQuantile(double quantile) {
+			final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(max, highestValue(i));
+				}
+			}
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d", count, getMean(),
+					getValueAtQuantile(0.5), getValueAtQuantile(0.9), getValueAtQuantile(0.99),
+					max);
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -20,11 +20,33 @@
 
 package uniol.matcher;
 
+import java.util.BitSet;
+
 /**
  * Letter counting algorithm based on an implementation by Harro Wimmel.
+ *
+ * <p>
+ * For a separation point s with letter c, the bounds of the interval are the
+ * minimum and maximum ratio of the other letter to c in certain infixes that
+ * end before or start at s. With the prefix counts X(n) of c and Y(n) of the
+ * other letter, such a ratio is the slope between the points (X, Y) of the
+ * infix ends. Words longer than {@value #HULL_THRESHOLD} letters therefore
+ * take the extreme slope from the upper convex hull of the candidate points,
+ * which is built incrementally in both directions. This takes O(n log n)
+ * time instead of O(n<sup>2</sup>) for the plain scan.
+ * </p>
  */
 public class LetterCountingUBM implements UnsolvableBinwordMatcher {
 
+	/**
+	 * Words longer than this are checked with the convex hull variant.
+	 */
+	static final int HULL_THRESHOLD = 256;
+
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	private final PatternUBM pattern = new PatternUBM();
+
 	/**
 	 * This class is for saving the computed intervals since they will be
 	 * needed later to construct places that are common to several
@@ -83,96 +105,421 @@ public class LetterCountingUBM implements UnsolvableBinwordMatcher {
 		}
 	}
 
+	/**
+	 * Separation point at which the letter counting fails, together with
+	 * the interval in which the arc weights would have to reside.
+	 */
+	public static class SeparationFailure {
+		private final int separationPoint;
+		private final Interval interval;
+
+		public SeparationFailure(int separationPoint, Interval interval) {
+			this.separationPoint = separationPoint;
+			this.interval = interval;
+		}
+
+		/**
+		 * Returns the separation point n, which lies before the letter
+		 * at index n.
+		 */
+		public int getSeparationPoint() {
+			return separationPoint;
+		}
+
+		public Interval getInterval() {
+			return interval;
+		}
+	}
+
 	@Override
 	public boolean isUnsolvableBinaryWord(String word) {
+		return isUnsolvableBinaryWord(BinaryWord.valueOf(word));
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		if (word.isEmpty()) {
+			return false;
+		}
+		return failingSeparationPoint(word.bits, word.length, null) >= 0;
+	}
+
+	/**
+	 * Returns the first separation point at which the word fails, or null
+	 * if the word is solvable.
+	 */
+	public SeparationFailure findSeparationFailure(String word) {
+		return findSeparationFailure(BinaryWord.valueOf(word));
+	}
+
+	/**
+	 * Packed variant of {@link #findSeparationFailure(String)}.
+	 */
+	public SeparationFailure findSeparationFailure(BinaryWord word) {
+		if (word.isEmpty()) {
+			return null;
+		}
+		final int[] bounds = new int[4];
+		final int seppt = failingSeparationPoint(word.bits, word.length, bounds);
+		if (seppt < 0) {
+			return null;
+		}
+		return new SeparationFailure(seppt, new Interval(bounds[0], bounds[1], bounds[2], bounds[3]));
+	}
+
+	/**
+	 * A failing separation point does not tell where the unsolvable factor
+	 * lies, so the factor is located with a single {@link PatternUBM} scan
+	 * instead of the letter counting, which the interface default would
+	 * run first.
+	 */
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		return pattern.findUnsolvableFactor(word);
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		return pattern.findUnsolvableFactor(word);
+	}
+
+	/**
+	 * Classifies all words with one bit array that is reused for every
+	 * word.
+	 */
+	@Override
+	public BitSet classify(String[] words) {
+		final BitSet result = new BitSet(words.length);
+		long[] bits = new long[0];
+		for (int i = 0; i < words.length; i++) {
+			final String word = words[i];
+			final int length = word.length();
+			if (length == 0) {
+				continue;
+			}
+			if (bits.length < BinaryWord.wordCount(length)) {
+				bits = new long[BinaryWord.wordCount(length)];
+			}
+			for (int j = 0; j < length; j++) {
+				final char c = word.charAt(j);
+				if (c == 'a') {
+					bits[j >>> 6] &= ~(1L << j);
+				} else if (c == 'b') {
+					bits[j >>> 6] |= 1L << j;
+				} else {
+					throw new IllegalArgumentException("Not a binary word: '" + word + "'");
+				}
+			}
+			if (failingSeparationPoint(bits, length, null) >= 0) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Classifies all words with one bit array that is reused for every
+	 * word.
+	 */
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		BinaryWord.checkBatch(words, length, result);
+		if (length == 0) {
+			return;
+		}
+		final long[] bits = new long[1];
+		for (int i = 0; i < words.length; i++) {
+			bits[0] = words[i];
+			if (failingSeparationPoint(bits, length, null) >= 0) {
+				result[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
+	/**
+	 * Runs the letter counting algorithm on the first <code>length</code>
+	 * letters of the bit array.
+	 *
+	 * @param bounds
+	 *                receives minimum numerator and denominator and maximum
+	 *                numerator and denominator of the failing separation
+	 *                point, may be null
+	 * @return the first separation point that fails, or -1 if the word is
+	 *         solvable
+	 */
+	private static int failingSeparationPoint(long[] bits, int length, int[] bounds) {
+		if (length > HULL_THRESHOLD) {
+			return failingSeparationPointHull(bits, length, bounds);
+		}
+		return failingSeparationPointScan(bits, length, bounds);
+	}
+
+	/**
+	 * Scans all infixes around every separation point. Every separation
+	 * point is checked as soon as its interval is known. The bounds are
+	 * compared exactly by cross multiplication in <code>long</code>.
+	 *
+	 * @param bounds
+	 *                receives minimum numerator and denominator and maximum
+	 *                numerator and denominator of the failing separation
+	 *                point, may be null
+	 * @return the first separation point that fails, or -1 if the word is
+	 *         solvable
+	 */
+	static int failingSeparationPointScan(long[] bits, int length, int[] bounds) {
 		// split off the last letter ("the letter to append")
-		final char inLetter = word.charAt(word.length() - 1);
+		final int inLetter = BinaryWord.bitAt(bits, length - 1);
 		// remaining word length
-		final int len = word.length() - 1;
+		final int len = length - 1;
 
-		// create space to save the intervals in which the arc weights
-		// have to reside
-		Interval[] intervals = new Interval[len + 1];
+		// numB[n] is the number of b's before position n, shared by
+		// the infixes on both sides of all separation points
+		final int[] numB = SCRATCH.get().prefixCounts(bits, len);
 
 		// for all possible separation points seppt in our word
 		// (n = before position n)
 		for (int seppt = 1; seppt < len; ++seppt) {
 			// letter allowed at the separation point
-			char sepLetter = word.charAt(seppt);
-
-			// number of a's/b's in prefix or postfix at the
-			// separation point
-			int numa = 0;
-			int numb = 0;
-			int tmpMinNum = 0;
-			int tmpMinDen = 0;
+			final int sepLetter = BinaryWord.bitAt(bits, seppt);
 
 			// compute the interval boundary for the infixes ending
 			// at the separation point this will be the upper
 			// boundary of the interval
+			long minNum = 0;
+			long minDen = 0;
 			for (int prefix = seppt - 1; prefix >= 0; --prefix) {
-				if (word.charAt(prefix) == 'a') {
-					++numa;
-				} else {
-					++numb;
-				}
-				if (sepLetter == word.charAt(prefix)) {
+				if (sepLetter == BinaryWord.bitAt(bits, prefix)) {
 					continue;
 				}
-				if (sepLetter == 'a') {
-					if (tmpMinNum == 0 || (tmpMinNum * numa > tmpMinDen * numb)) {
-						tmpMinNum = numb;
-						tmpMinDen = numa;
+				// number of a's/b's in the infix v[prefix..seppt-1]
+				final long numb = numB[seppt] - numB[prefix];
+				final long numa = seppt - prefix - numb;
+				if (sepLetter == 0) {
+					if (minNum == 0 || minNum * numa > minDen * numb) {
+						minNum = numb;
+						minDen = numa;
 					}
-				} else if (tmpMinNum == 0 || (tmpMinNum * numb > tmpMinDen * numa)) {
-					tmpMinNum = numa;
-					tmpMinDen = numb;
+				} else if (minNum == 0 || minNum * numb > minDen * numa) {
+					minNum = numa;
+					minDen = numb;
 				}
 			}
+			if (minDen == 0) {
+				// the interval is infinite
+				continue;
+			}
 
 			// compute the interval boundary for the infixes
 			// starting at the separation point
 			// this will be the lower boundary of the interval
-			numa = 0;
-			numb = 0;
-			int tmpMaxNum = 0;
-			int tmpMaxDen = 0;
+			long maxNum = 0;
+			long maxDen = 0;
 			for (int postfix = seppt; postfix < len; ++postfix) {
-				if (word.charAt(postfix) == 'a') {
-					++numa;
-				} else {
-					++numb;
-				}
-				if (postfix < len - 1 && sepLetter == word.charAt(postfix + 1)) {
+				final int next = postfix < len - 1 ? BinaryWord.bitAt(bits, postfix + 1) : inLetter;
+				if (sepLetter == next) {
 					continue;
 				}
-				if (postfix == len - 1 && sepLetter == inLetter) {
-					continue;
-				}
-				if (sepLetter == 'a') {
-					if (tmpMaxDen == 0 || (tmpMaxNum * numa < tmpMaxDen * numb)) {
-						tmpMaxNum = numb;
-						tmpMaxDen = numa;
+				// number of a's/b's in the infix v[seppt..postfix]
+				final long numb = numB[postfix + 1] - numB[seppt];
+				final long numa = postfix + 1 - seppt - numb;
+				if (sepLetter == 0) {
+					if (maxDen == 0 || maxNum * numa < maxDen * numb) {
+						maxNum = numb;
+						maxDen = numa;
 					}
-				} else if (tmpMaxDen == 0 || (tmpMaxNum * numb < tmpMaxDen * numa)) {
-					tmpMaxNum = numa;
-					tmpMaxDen = numb;
+				} else if (maxDen == 0 || maxNum * numb < maxDen * numa) {
+					maxNum = numa;
+					maxDen = numb;
 				}
 			}
 
-			// save the interval
-			intervals[seppt] = new Interval(tmpMinNum, tmpMinDen, tmpMaxNum, tmpMaxDen);
+			// check for a separation failure
+			if (maxDen != 0 && minNum * maxDen <= maxNum * minDen) {
+				if (bounds != null) {
+					bounds[0] = (int) minNum;
+					bounds[1] = (int) minDen;
+					bounds[2] = (int) maxNum;
+					bounds[3] = (int) maxDen;
+				}
+				return seppt;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Variant of {@link #failingSeparationPointScan(long[], int, int[])}
+	 * that finds the bounds of every separation point on convex hulls. The
+	 * bounds are equal as fractions, but may be given by a different pair
+	 * of numerator and denominator.
+	 */
+	static int failingSeparationPointHull(long[] bits, int length, int[] bounds) {
+		final int inLetter = BinaryWord.bitAt(bits, length - 1);
+		final int len = length - 1;
+		final Scratch scratch = SCRATCH.get();
+		final int[] numB = scratch.prefixCounts(bits, len);
+		final int[] maxNum = scratch.maxNum;
+		final int[] maxDen = scratch.maxDen;
+		final int[][] hullX = scratch.hullX;
+		final int[][] hullY = scratch.hullY;
+		final int[] size = scratch.hullSize;
+
+		// lower boundaries from the right: the infix v[s..p] is a
+		// candidate for the letter c if the letter after p is not c, its
+		// ratio is the slope from (X(s), Y(s)) to (X(p+1), Y(p+1)).
+		// hull[c] is the upper hull of the candidates with p >= s from
+		// right to left. Of the candidates with equal X only the one
+		// with the largest p can be a maximum.
+		size[0] = 0;
+		size[1] = 0;
+		for (int seppt = len - 1; seppt >= 1; --seppt) {
+			final int next = seppt < len - 1 ? BinaryWord.bitAt(bits, seppt + 1) : inLetter;
+			final int c = 1 - next;
+			final int x = count(numB, seppt + 1, c);
+			if (size[c] == 0 || hullX[c][size[c] - 1] != x) {
+				size[c] = push(hullX[c], hullY[c], size[c], x, seppt + 1 - x, -1);
+			}
+
+			final int sepLetter = BinaryWord.bitAt(bits, seppt);
+			if (size[sepLetter] == 0) {
+				maxDen[seppt] = 0;
+				continue;
+			}
+			final int sx = count(numB, seppt, sepLetter);
+			final int sy = seppt - sx;
+			final int[] hx = hullX[sepLetter];
+			final int[] hy = hullY[sepLetter];
+			// slopes from (sx, sy) rise and then fall along the hull
+			int lo = 0;
+			int hi = size[sepLetter] - 1;
+			while (lo < hi) {
+				final int mid = (lo + hi) >>> 1;
+				final long cross = (long) (hy[mid + 1] - sy) * (hx[mid] - sx);
+				if (cross > (long) (hy[mid] - sy) * (hx[mid + 1] - sx)) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			maxNum[seppt] = hy[lo] - sy;
+			maxDen[seppt] = hx[lo] - sx;
 		}
 
-		// check for separation failures
+		// upper boundaries from the left: the infix v[j..s-1] is a
+		// candidate for the letter c if v[j] is not c and the infix
+		// contains a c, its ratio is the slope from (X(j), Y(j)) to
+		// (X(s), Y(s)). Only the last j before each c can be a minimum,
+		// it is added to hull[c] once the c is passed.
+		size[0] = 0;
+		size[1] = 0;
 		for (int seppt = 1; seppt < len; ++seppt) {
-			if (!intervals[seppt].isInfinite() && !intervals[seppt].isUnlimited()
-					&& intervals[seppt].leftQuot() <= intervals[seppt].rightQuot()) {
-				return true;
+			final int sepLetter = BinaryWord.bitAt(bits, seppt);
+			if (size[sepLetter] > 0 && maxDen[seppt] != 0) {
+				final int qx = count(numB, seppt, sepLetter);
+				final int qy = seppt - qx;
+				final int[] hx = hullX[sepLetter];
+				final int[] hy = hullY[sepLetter];
+				// slopes to (qx, qy) fall and then rise along the hull
+				int lo = 0;
+				int hi = size[sepLetter] - 1;
+				while (lo < hi) {
+					final int mid = (lo + hi) >>> 1;
+					final long cross = (long) (qy - hy[mid + 1]) * (qx - hx[mid]);
+					if (cross < (long) (qy - hy[mid]) * (qx - hx[mid + 1])) {
+						lo = mid + 1;
+					} else {
+						hi = mid;
+					}
+				}
+				final long minNum = qy - hy[lo];
+				final long minDen = qx - hx[lo];
+
+				// check for a separation failure
+				if (minNum * maxDen[seppt] <= (long) maxNum[seppt] * minDen) {
+					if (bounds != null) {
+						bounds[0] = (int) minNum;
+						bounds[1] = (int) minDen;
+						bounds[2] = maxNum[seppt];
+						bounds[3] = maxDen[seppt];
+					}
+					return seppt;
+				}
+			}
+
+			if (BinaryWord.bitAt(bits, seppt - 1) != sepLetter) {
+				final int x = count(numB, seppt - 1, sepLetter);
+				size[sepLetter] = push(hullX[sepLetter], hullY[sepLetter], size[sepLetter], x,
+						seppt - 1 - x, 1);
 			}
 		}
 
-		return false;
+		return -1;
+	}
+
+	/**
+	 * Returns the number of occurrences of the letter among the first n
+	 * letters.
+	 */
+	private static int count(int[] numB, int n, int letter) {
+		return letter == 1 ? numB[n] : n - numB[n];
+	}
+
+	/**
+	 * Appends a point to an upper convex hull and returns the new size.
+	 *
+	 * @param direction
+	 *                1 if the points are added from left to right, -1 if
+	 *                they are added from right to left
+	 */
+	private static int push(int[] hx, int[] hy, int size, int x, int y, int direction) {
+		while (size >= 2) {
+			final long cross = (long) (hx[size - 1] - hx[size - 2]) * (y - hy[size - 1])
+					- (long) (hy[size - 1] - hy[size - 2]) * (x - hx[size - 1]);
+			if (direction * cross < 0) {
+				break;
+			}
+			size--;
+		}
+		hx[size] = x;
+		hy[size] = y;
+		return size + 1;
+	}
+
+	/**
+	 * Per-thread buffers of the letter counting algorithm.
+	 */
+	private static final class Scratch {
+		// numB[n] is the number of b's among the first n letters
+		int[] numB = new int[0];
+		int[] maxNum;
+		int[] maxDen;
+		final int[][] hullX = new int[2][];
+		final int[][] hullY = new int[2][];
+		final int[] hullSize = new int[2];
+
+		/**
+		 * Fills the prefix counts for the first <code>len</code> letters
+		 * and makes sure that all buffers hold <code>len + 1</code>
+		 * elements.
+		 */
+		int[] prefixCounts(long[] bits, int len) {
+			if (numB.length <= len) {
+				final int capacity = Math.max(len + 1, 2 * numB.length);
+				numB = new int[capacity];
+				maxNum = new int[capacity];
+				maxDen = new int[capacity];
+				for (int c = 0; c <= 1; c++) {
+					hullX[c] = new int[capacity];
+					hullY[c] = new int[capacity];
+				}
+			}
+			numB[0] = 0;
+			for (int i = 0; i < len; i++) {
+				numB[i + 1] = numB[i] + BinaryWord.bitAt(bits, i);
+			}
+			return numB;
+		}
 	}
 
 }
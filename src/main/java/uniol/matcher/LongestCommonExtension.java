@@ -0,0 +1,206 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+/**
+ * Answers longest common extension queries on a binary word in constant time.
+ * The structure is a suffix array with LCP array and a sparse table for range
+ * minimum queries over the string <code>v # reverse(v)</code>, so that
+ * extensions to the right and to the left are both answered. Building it takes
+ * O(n log n) time and space.
+ */
+class LongestCommonExtension {
+
+	private final int length;
+	private final int[] rank;
+	// sparse[k][r] is the minimum of lcp[r..r+2^k-1]
+	private final int[][] sparse;
+
+	LongestCommonExtension(BinaryWord word) {
+		length = word.length();
+		final int n = 2 * length + 1;
+
+		// letters are 1 and 2, the unique separator 0 stops every
+		// extension at the end of the word
+		final int[] s = new int[n];
+		for (int i = 0; i < length; i++) {
+			final int letter = BinaryWord.bitAt(word.bits, i) + 1;
+			s[i] = letter;
+			s[n - 1 - i] = letter;
+		}
+
+		final int[] sa = suffixArray(s, 3);
+		rank = new int[n];
+		for (int r = 0; r < n; r++) {
+			rank[sa[r]] = r;
+		}
+		sparse = sparseTable(lcpArray(s, sa, rank));
+	}
+
+	/**
+	 * Returns the length of the longest common prefix of the suffixes
+	 * starting at x and y.
+	 */
+	int forward(int x, int y) {
+		if (x == y) {
+			return length - x;
+		}
+		return lcp(x, y);
+	}
+
+	/**
+	 * Returns the length of the longest common suffix of the prefixes
+	 * ending at x and y, i.e. the number of k with v[x-k] = v[y-k].
+	 */
+	int backward(int x, int y) {
+		if (x < 0 || y < 0) {
+			return 0;
+		}
+		if (x == y) {
+			return x + 1;
+		}
+		// v[x] is at index 2 * length - x of the reversed part
+		return lcp(2 * length - x, 2 * length - y);
+	}
+
+	private int lcp(int x, int y) {
+		int lo = rank[x];
+		int hi = rank[y];
+		if (lo > hi) {
+			final int tmp = lo;
+			lo = hi;
+			hi = tmp;
+		}
+		// minimum of lcp[lo+1..hi]
+		lo++;
+		final int k = 31 - Integer.numberOfLeadingZeros(hi - lo + 1);
+		return Math.min(sparse[k][lo], sparse[k][hi - (1 << k) + 1]);
+	}
+
+	/**
+	 * Builds the suffix array by prefix doubling with radix sort.
+	 */
+	static int[] suffixArray(int[] s, int alphabetSize) {
+		final int n = s.length;
+		int[] sa = new int[n];
+		int[] rank = new int[n];
+		int[] tmp = new int[n];
+		int[] count = new int[Math.max(alphabetSize, n) + 1];
+
+		for (int i = 0; i < n; i++) {
+			count[s[i]]++;
+		}
+		for (int c = 1; c < alphabetSize; c++) {
+			count[c] += count[c - 1];
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			sa[--count[s[i]]] = i;
+		}
+		rank[sa[0]] = 0;
+		for (int r = 1; r < n; r++) {
+			rank[sa[r]] = rank[sa[r - 1]] + (s[sa[r]] != s[sa[r - 1]] ? 1 : 0);
+		}
+
+		for (int k = 1; rank[sa[n - 1]] < n - 1; k <<= 1) {
+			// order by the second half: suffixes without one first
+			int j = 0;
+			for (int i = n - k; i < n; i++) {
+				tmp[j++] = i;
+			}
+			for (int r = 0; r < n; r++) {
+				if (sa[r] >= k) {
+					tmp[j++] = sa[r] - k;
+				}
+			}
+
+			// stable counting sort by the first half
+			final int classes = rank[sa[n - 1]] + 1;
+			java.util.Arrays.fill(count, 0, classes, 0);
+			for (int i = 0; i < n; i++) {
+				count[rank[i]]++;
+			}
+			for (int c = 1; c < classes; c++) {
+				count[c] += count[c - 1];
+			}
+			for (int i = n - 1; i >= 0; i--) {
+				sa[--count[rank[tmp[i]]]] = tmp[i];
+			}
+
+			tmp[sa[0]] = 0;
+			for (int r = 1; r < n; r++) {
+				final int a = sa[r - 1];
+				final int b = sa[r];
+				final boolean same = rank[a] == rank[b]
+						&& (a + k < n ? rank[a + k] : -1) == (b + k < n ? rank[b + k] : -1);
+				tmp[b] = tmp[a] + (same ? 0 : 1);
+			}
+			final int[] swap = rank;
+			rank = tmp;
+			tmp = swap;
+		}
+
+		return sa;
+	}
+
+	/**
+	 * Builds the LCP array with Kasai's algorithm. Entry r is the length of
+	 * the longest common prefix of the suffixes sa[r-1] and sa[r].
+	 */
+	static int[] lcpArray(int[] s, int[] sa, int[] rank) {
+		final int n = s.length;
+		final int[] lcp = new int[n];
+		int h = 0;
+		for (int i = 0; i < n; i++) {
+			if (rank[i] > 0) {
+				final int j = sa[rank[i] - 1];
+				while (i + h < n && j + h < n && s[i + h] == s[j + h]) {
+					h++;
+				}
+				lcp[rank[i]] = h;
+				if (h > 0) {
+					h--;
+				}
+			} else {
+				h = 0;
+			}
+		}
+		return lcp;
+	}
+
+	private static int[][] sparseTable(int[] values) {
+		final int n = values.length;
+		final int levels = 32 - Integer.numberOfLeadingZeros(n);
+		final int[][] table = new int[levels][];
+		table[0] = values;
+		for (int k = 1; k < levels; k++) {
+			final int[] prev = table[k - 1];
+			final int size = n - (1 << k) + 1;
+			final int[] level = new int[size];
+			for (int r = 0; r < size; r++) {
+				level[r] = Math.min(prev[r], prev[r + (1 << (k - 1))]);
+			}
+			table[k] = level;
+		}
+		return table;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,274 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Implementation that looks up the answer for short words in a precomputed
+ * bitset with one bit per word. The bitset is stored off-heap in a direct or
+ * memory mapped {@link ByteBuffer}. Words longer than the table are passed to
+ * {@link PatternUBM}.
+ *
+ * <p>
+ * The table holds one segment per length, and bit w of the segment for length
+ * n is set if the word with the packed letters w is unsolvable. A table for
+ * words up to n letters takes about 2<sup>n-2</sup> bytes. It is built length
+ * by length: a word is unsolvable if its longest proper prefix or suffix is,
+ * which is looked up in the previous segment, and only the remaining words
+ * are matched.
+ * </p>
+ */
+public class LookupTableUBM implements UnsolvableBinwordMatcher {
+
+	/**
+	 * Default maximum length of the words in the table, which needs 4 MiB.
+	 */
+	public static final int DEFAULT_MAX_LENGTH = 24;
+
+	/**
+	 * Largest supported maximum length, limited by the capacity of a
+	 * {@link ByteBuffer}.
+	 */
+	public static final int MAX_TABLE_LENGTH = 32;
+
+	private static final int MAGIC = 0x55424c54;
+	private static final int HEADER_SIZE = 8;
+	private static final int THRESHOLD = 1 << 10;
+
+	private final int maxLength;
+	// base[n] is the index of the first long of the segment for length n
+	private final int[] base;
+	private final ByteBuffer table;
+	private final PatternUBM fallback = new PatternUBM();
+
+	/**
+	 * Builds a table for words up to {@link #DEFAULT_MAX_LENGTH} letters on
+	 * the common pool.
+	 */
+	public LookupTableUBM() {
+		this(DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * Builds a table for words up to the given length on the common pool.
+	 */
+	public LookupTableUBM(int maxLength) {
+		this(maxLength, ForkJoinPool.commonPool());
+	}
+
+	public LookupTableUBM(int maxLength, ForkJoinPool pool) {
+		this(maxLength, (ByteBuffer) null);
+		for (int length = 0; length <= maxLength; length++) {
+			pool.invoke(new FillTask(length, base[length], base[length + 1]));
+		}
+	}
+
+	private LookupTableUBM(int maxLength, ByteBuffer table) {
+		if (maxLength < 0 || maxLength > MAX_TABLE_LENGTH) {
+			throw new IllegalArgumentException("Table length out of range: " + maxLength);
+		}
+		this.maxLength = maxLength;
+		this.base = new int[maxLength + 2];
+		for (int length = 0; length <= maxLength; length++) {
+			base[length + 1] = base[length] + Math.max(1, 1 << Math.max(0, length - 6));
+		}
+		if (table == null) {
+			table = ByteBuffer.allocateDirect(base[maxLength + 1] * Long.BYTES);
+		}
+		this.table = table.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Loads a table that was written by {@link #save(Path)}. The file is
+	 * mapped into memory and not copied.
+	 *
+	 * @throws IOException
+	 *                 if the file cannot be read or is no table file
+	 */
+	public static LookupTableUBM load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("Not a lookup table file: " + file);
+			}
+			final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (mapped.getInt(0) != MAGIC) {
+				throw new IOException("Not a lookup table file: " + file);
+			}
+			final int maxLength = mapped.getInt(Integer.BYTES);
+			if (maxLength < 0 || maxLength > MAX_TABLE_LENGTH) {
+				throw new IOException("Table length out of range: " + maxLength);
+			}
+			mapped.position(HEADER_SIZE);
+			final LookupTableUBM lookupTable = new LookupTableUBM(maxLength, mapped.slice());
+			if (lookupTable.table.capacity() != lookupTable.base[maxLength + 1] * Long.BYTES) {
+				throw new IOException("Truncated lookup table file: " + file);
+			}
+			return lookupTable;
+		}
+	}
+
+	/**
+	 * Writes the table to a file so that it can be loaded with
+	 * {@link #load(Path)} instead of being built again.
+	 */
+	public void save(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(maxLength).flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			final ByteBuffer data = table.duplicate();
+			data.clear();
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+		}
+	}
+
+	/**
+	 * Returns the maximum length of the words in the table.
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Packs the word like the other packed implementations, which rejects
+	 * letters other than 'a' and 'b'.
+	 */
+	@Override
+	public boolean isUnsolvableBinaryWord(String word) {
+		return isUnsolvableBinaryWord(BinaryWord.valueOf(word));
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		if (word.length > maxLength) {
+			return fallback.isUnsolvableBinaryWord(word);
+		}
+		return lookup(word.toLong(), word.length);
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(long bits, int length) {
+		BinaryWord.checkPackedLength(length);
+		if (length > maxLength) {
+			return fallback.isUnsolvableBinaryWord(bits, length);
+		}
+		return lookup(bits & BinaryWord.mask(length), length);
+	}
+
+	/**
+	 * The table only holds one bit per word, so the factor of a word that
+	 * the table reports as unsolvable is located with an additional
+	 * {@link PatternUBM} scan. Solvable words cost a single lookup.
+	 */
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		return isUnsolvableBinaryWord(word) ? fallback.findUnsolvableFactor(word) : null;
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		return isUnsolvableBinaryWord(word) ? fallback.findUnsolvableFactor(word) : null;
+	}
+
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		if (length > maxLength) {
+			fallback.classify(words, length, result);
+			return;
+		}
+		BinaryWord.checkBatch(words, length, result);
+		final ByteBuffer segment = table;
+		final int offset = base[length] * Long.BYTES;
+		final long mask = BinaryWord.mask(length);
+		for (int i = 0; i < words.length; i++) {
+			final long bits = words[i] & mask;
+			final long entry = segment.getLong(offset + (int) (bits >>> 6) * Long.BYTES);
+			result[i >>> 6] |= (entry >>> bits & 1) << i;
+		}
+	}
+
+	private boolean lookup(long bits, int length) {
+		final long entry = table.getLong((base[length] + (int) (bits >>> 6)) * Long.BYTES);
+		return (entry >>> bits & 1) != 0;
+	}
+
+	private class FillTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int length;
+		private final int from;
+		private final int to;
+
+		FillTask(int length, int from, int to) {
+			this.length = length;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > THRESHOLD) {
+				final int mid = from + (to - from) / 2;
+				invokeAll(new FillTask(length, from, mid), new FillTask(length, mid, to));
+				return;
+			}
+			final int words = length < 6 ? 1 << length : Long.SIZE;
+			for (int index = from; index < to; index++) {
+				final long first = (long) (index - base[length]) << 6;
+				long entry = 0;
+				for (int k = 0; k < words; k++) {
+					if (isUnsolvable(first + k)) {
+						entry |= 1L << k;
+					}
+				}
+				table.putLong(index * Long.BYTES, entry);
+			}
+		}
+
+		private boolean isUnsolvable(long bits) {
+			if (length == 0) {
+				return false;
+			}
+			// the segment of the previous length is complete
+			return lookup(bits & BinaryWord.mask(length - 1), length - 1) || lookup(bits >>> 1, length - 1)
+					|| fallback.isUnsolvableBinaryWord(bits, length);
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
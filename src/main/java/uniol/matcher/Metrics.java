@@ -0,0 +1,144 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the counters and histograms that the matchers record while
+ * they classify words. Recording is switched on with the system property
+ * <code>uniol.matcher.metrics=true</code> at startup. The property is read
+ * into the constant {@link #ENABLED}, so with the default the JIT compiler
+ * removes the recording code from the matchers entirely.
+ *
+ * <p>
+ * Names are dot separated, starting with the simple class name of the
+ * implementation, e.g. <code>PatternUBM.patternII.sites</code>. Code on the hot
+ * path keeps the counters and histograms it uses in constants instead of
+ * looking them up for every word.
+ * </p>
+ */
+public final class Metrics {
+
+	/**
+	 * True if the matchers record metrics.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("uniol.matcher.metrics");
+
+	private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+	private Metrics() {
+	}
+
+	/**
+	 * Returns the counter with the given name, which is created on first
+	 * use.
+	 */
+	public static LongAdder counter(String name) {
+		return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+	}
+
+	/**
+	 * Returns the histogram with the given name, which is created on first
+	 * use.
+	 */
+	public static LatencyHistogram histogram(String name) {
+		return HISTOGRAMS.computeIfAbsent(name, key -> new LatencyHistogram());
+	}
+
+	/**
+	 * Returns a matcher that records the latency and the word length of every
+	 * call to the given matcher if recording is enabled, and the given
+	 * matcher itself otherwise.
+	 */
+	public static UnsolvableBinwordMatcher instrument(UnsolvableBinwordMatcher matcher) {
+		return ENABLED ? new InstrumentedUBM(matcher) : matcher;
+	}
+
+	/**
+	 * Returns the current values of all counters and histograms.
+	 */
+	public static Snapshot snapshot() {
+		final Map<String, Long> counters = new TreeMap<>();
+		COUNTERS.forEach((name, counter) -> counters.put(name, counter.sum()));
+		final Map<String, LatencyHistogram.Snapshot> histograms = new TreeMap<>();
+		HISTOGRAMS.forEach((name, histogram) -> histograms.put(name, histogram.snapshot()));
+		return new Snapshot(counters, histograms);
+	}
+
+	/**
+	 * Sets all counters to zero and clears all histograms.
+	 */
+	public static void reset() {
+		COUNTERS.values().forEach(LongAdder::reset);
+		HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+	}
+
+	/**
+	 * Values of all counters and histograms at one moment, ordered by name.
+	 */
+	public static final class Snapshot {
+
+		private final Map<String, Long> counters;
+		private final Map<String, LatencyHistogram.Snapshot> histograms;
+
+		Snapshot(Map<String, Long> counters, Map<String, LatencyHistogram.Snapshot> histograms) {
+			this.counters = Collections.unmodifiableMap(counters);
+			this.histograms = Collections.unmodifiableMap(histograms);
+		}
+
+		public Map<String, Long> getCounters() {
+			return counters;
+		}
+
+		public Map<String, LatencyHistogram.Snapshot> getHistograms() {
+			return histograms;
+		}
+
+		/**
+		 * Returns the value of a counter, or 0 if it does not exist.
+		 */
+		public long getCounter(String name) {
+			return counters.getOrDefault(name, 0L);
+		}
+
+		/**
+		 * Exports the values with one line per counter or histogram.
+		 */
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder();
+			counters.forEach((name, value) -> sb.append(name).append(' ').append(value).append('\n'));
+			histograms.forEach((name, histogram) -> sb.append(name).append(' ').append(histogram)
+					.append('\n'));
+			return sb.toString();
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
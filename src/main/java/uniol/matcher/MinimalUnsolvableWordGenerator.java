@@ -0,0 +1,273 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Generates all minimal unsolvable binary words up to a given length. A word is
+ * minimal if it is unsolvable but its longest proper prefix and suffix are
+ * solvable.
+ *
+ * <p>
+ * Solvable words are closed under taking factors, so the generator only
+ * extends solvable words letter by letter. If a solvable word u is extended by
+ * a letter, every unsolvable factor of the extension has to be a suffix. Hence
+ * only the factors ending at the new letter are matched against the patterns
+ * of {@link PatternUBM}. The extension is a minimal unsolvable word exactly if
+ * the whole word is the only unsolvable suffix. The search tree is explored in
+ * parallel on a {@link ForkJoinPool}.
+ * </p>
+ */
+public class MinimalUnsolvableWordGenerator {
+
+	/**
+	 * Orders words by length first and lexicographically second, which is
+	 * the order of the word list resource.
+	 */
+	public static final Comparator<BinaryWord> WORD_ORDER = Comparator.comparingInt(BinaryWord::length)
+			.thenComparing(Object::toString);
+
+	/**
+	 * Words up to this length are extended in separate tasks.
+	 */
+	private static final int SPLIT_DEPTH = 12;
+
+	private final int maxLength;
+	private final ForkJoinPool pool;
+	// divisors[l] contains all periods p with 2 <= p <= l / 2 that divide l
+	private final int[][] divisors;
+
+	/**
+	 * Creates a generator that runs on the common pool.
+	 */
+	public MinimalUnsolvableWordGenerator(int maxLength) {
+		this(maxLength, ForkJoinPool.commonPool());
+	}
+
+	public MinimalUnsolvableWordGenerator(int maxLength, ForkJoinPool pool) {
+		if (maxLength < 0) {
+			throw new IllegalArgumentException("Negative maximum length: " + maxLength);
+		}
+		this.maxLength = maxLength;
+		this.pool = pool;
+		this.divisors = new int[maxLength + 1][];
+		for (int l = 0; l <= maxLength; l++) {
+			final int length = l;
+			this.divisors[l] = IntStream.rangeClosed(2, l / 2).filter(p -> length % p == 0).toArray();
+		}
+	}
+
+	/**
+	 * Returns all minimal unsolvable words with at most the maximum length
+	 * in {@link #WORD_ORDER}.
+	 */
+	public List<BinaryWord> generate() {
+		// one extra element so that windows can always read one long ahead
+		final long[] word = new long[BinaryWord.wordCount(maxLength) + 1];
+		final List<BinaryWord> words = pool.invoke(new ExtendTask(word, 0, -1, -1, -1, -1));
+		words.sort(WORD_ORDER);
+		return words;
+	}
+
+	/**
+	 * Writes all minimal unsolvable words in the format of the word list
+	 * resource, i.e. one word per line grouped by length with a comment
+	 * header for every length starting at 2.
+	 */
+	public void write(Writer out) throws IOException {
+		final List<BinaryWord> words = generate();
+		int next = 0;
+		for (int length = 2; length <= maxLength; length++) {
+			out.write("#-------------------- " + length + " --------------------\n");
+			while (next < words.size() && words.get(next).length() == length) {
+				out.write(words.get(next++).toString());
+				out.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the word list resource.
+	 *
+	 * @param args
+	 *                maximum word length and output file
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: MinimalUnsolvableWordGenerator <max length> <output file>");
+			System.exit(1);
+		}
+		final MinimalUnsolvableWordGenerator generator = new MinimalUnsolvableWordGenerator(
+				Integer.parseInt(args[0]));
+		try (Writer out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+			generator.write(out);
+		}
+	}
+
+	/**
+	 * Extends the solvable word of the given length with both letters and
+	 * collects the minimal unsolvable words found in the subtree. The
+	 * positions of the last two occurrences of each letter are passed
+	 * along for the pattern I check.
+	 */
+	private void extend(long[] word, int length, int lastA, int prevA, int lastB, int prevB,
+			List<BinaryWord> result) {
+		if (length == maxLength) {
+			return;
+		}
+		for (int letter = 0; letter <= 1; letter++) {
+			setLetter(word, length, letter);
+			final int last = letter == 0 ? lastA : lastB;
+			final int prev = letter == 0 ? prevA : prevB;
+			final int start = unsolvableSuffixStart(word, length, letter, last, prev);
+			if (start < 0) {
+				if (letter == 0) {
+					extend(word, length + 1, length, lastA, lastB, prevB, result);
+				} else {
+					extend(word, length + 1, lastA, prevA, length, lastB, result);
+				}
+			} else if (start == 0) {
+				result.add(BinaryWord.valueOf(word, length + 1));
+			}
+		}
+		setLetter(word, length, 0);
+	}
+
+	/**
+	 * Returns the largest start index of an unsolvable suffix of
+	 * <code>word[0..pos]</code>, or -1 if there is none. The word without
+	 * its last letter has to be solvable.
+	 *
+	 * @param pos
+	 *                index of the last letter
+	 * @param letter
+	 *                last letter, which is the letter 'a' of the patterns
+	 *                that can end here
+	 * @param last
+	 *                index of the last occurrence of the letter before pos
+	 * @param prev
+	 *                index of the occurrence before that
+	 */
+	int unsolvableSuffixStart(long[] word, int pos, int letter, int last, int prev) {
+		// pattern I: ab^xab^ya with x > y + 2, the delimiters have to
+		// be the last three occurrences of the letter
+		int best = -1;
+		if (prev >= 0 && last - prev - 1 > pos - last - 1 + 2) {
+			best = prev;
+		}
+
+		// pattern II: abw(baw)^ka, v[i..pos-1] with v[i] and v[i+1]
+		// swapped has to be a power s^m with m >= 2
+		for (int i = pos - 4; i > best; i--) {
+			if (BinaryWord.bitAt(word, i) != letter || BinaryWord.bitAt(word, i + 1) == letter) {
+				continue;
+			}
+			final int factorLength = pos - i;
+			for (int p : divisors[factorLength]) {
+				// the swapped "ba" has to repeat at i + p, the rest
+				// of the factor has to match itself shifted by p
+				if (BinaryWord.bitAt(word, i + p) != letter
+						&& BinaryWord.bitAt(word, i + p + 1) == letter
+						&& BinaryWord.regionMatches(word, i + 2, i + 2 + p,
+								factorLength - p - 2)) {
+					return i;
+				}
+			}
+		}
+		return best;
+	}
+
+	private static void setLetter(long[] word, int index, int letter) {
+		if (letter == 0) {
+			word[index >>> 6] &= ~(1L << index);
+		} else {
+			word[index >>> 6] |= 1L << index;
+		}
+	}
+
+	private class ExtendTask extends RecursiveTask<List<BinaryWord>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] word;
+		private final int length;
+		private final int lastA;
+		private final int prevA;
+		private final int lastB;
+		private final int prevB;
+
+		ExtendTask(long[] word, int length, int lastA, int prevA, int lastB, int prevB) {
+			this.word = word;
+			this.length = length;
+			this.lastA = lastA;
+			this.prevA = prevA;
+			this.lastB = lastB;
+			this.prevB = prevB;
+		}
+
+		@Override
+		protected List<BinaryWord> compute() {
+			final List<BinaryWord> result = new ArrayList<>();
+			if (length >= SPLIT_DEPTH || length == maxLength) {
+				extend(word, length, lastA, prevA, lastB, prevB, result);
+				return result;
+			}
+
+			final List<ExtendTask> subtasks = new ArrayList<>(2);
+			for (int letter = 0; letter <= 1; letter++) {
+				final long[] extended = word.clone();
+				setLetter(extended, length, letter);
+				final int last = letter == 0 ? lastA : lastB;
+				final int prev = letter == 0 ? prevA : prevB;
+				final int start = unsolvableSuffixStart(extended, length, letter, last, prev);
+				if (start < 0) {
+					if (letter == 0) {
+						subtasks.add(new ExtendTask(extended, length + 1, length, lastA, lastB,
+								prevB));
+					} else {
+						subtasks.add(new ExtendTask(extended, length + 1, lastA, prevA, length,
+								lastB));
+					}
+				} else if (start == 0) {
+					result.add(BinaryWord.valueOf(extended, length + 1));
+				}
+			}
+			for (ExtendTask task : invokeAll(subtasks)) {
+				result.addAll(task.join());
+			}
+			return result;
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
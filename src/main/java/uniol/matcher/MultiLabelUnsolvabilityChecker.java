@@ -0,0 +1,214 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a sequence over an arbitrary set of labels by projecting it onto
+ * every pair of labels. The sequence is solvable only if all k(k-1)/2
+ * projections are solvable binary words.
+ *
+ * <p>
+ * Instead of building every projection and classifying it separately, the
+ * sequence is read once and every letter is appended to the
+ * {@link IncrementalUnsolvableMatcher}s of the k - 1 pairs that contain its
+ * label, so the check takes O(k n) appends and stops at the first letter that
+ * makes a projection unsolvable. The matcher of a pair is only created when
+ * the second of its labels first occurs, because before that its projection is
+ * a power of a single letter. The positions of every label are recorded once
+ * and shared by all pairs to map the unsolvable factor back into the sequence.
+ * Instances are not thread-safe.
+ * </p>
+ */
+public class MultiLabelUnsolvabilityChecker {
+
+	/**
+	 * Checks the sequence of labels. Labels are compared with
+	 * {@link Object#equals(Object)}.
+	 *
+	 * @return the pair whose projection becomes unsolvable first, or null
+	 *         if every projection is solvable
+	 */
+	public <T> UnsolvablePair<T> check(List<T> sequence) {
+		final Map<T, Integer> indices = new HashMap<>();
+		final List<T> labels = new ArrayList<>();
+		// matchers.get(d)[c] is the matcher of the pair c < d, with c
+		// as 'a' and d as 'b'
+		final List<IncrementalUnsolvableMatcher[]> matchers = new ArrayList<>();
+		// positions.get(c) holds the indices of label c in the sequence
+		final List<int[]> positions = new ArrayList<>();
+		int[] counts = new int[16];
+
+		for (int t = 0; t < sequence.size(); t++) {
+			final T label = sequence.get(t);
+			Integer index = indices.get(label);
+			if (index == null) {
+				index = labels.size();
+				indices.put(label, index);
+				labels.add(label);
+				positions.add(new int[16]);
+				if (index == counts.length) {
+					counts = Arrays.copyOf(counts, 2 * counts.length);
+				}
+				matchers.add(newMatchers(index, counts));
+			}
+
+			final int c = index;
+			int[] own = positions.get(c);
+			if (counts[c] == own.length) {
+				own = Arrays.copyOf(own, 2 * own.length);
+				positions.set(c, own);
+			}
+			own[counts[c]++] = t;
+
+			// c is 'b' in the pairs with the earlier labels and 'a' in
+			// the pairs with the later ones
+			final IncrementalUnsolvableMatcher[] row = matchers.get(c);
+			for (int other = 0; other < c; other++) {
+				if (row[other].append('b')) {
+					return pair(labels, positions, counts, other, c, row[other]);
+				}
+			}
+			for (int other = c + 1; other < labels.size(); other++) {
+				final IncrementalUnsolvableMatcher matcher = matchers.get(other)[c];
+				if (matcher.append('a')) {
+					return pair(labels, positions, counts, c, other, matcher);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the matchers of the pairs of a new label with all earlier
+	 * labels, which have received the occurrences of the earlier label.
+	 */
+	private static IncrementalUnsolvableMatcher[] newMatchers(int label, int[] counts) {
+		final IncrementalUnsolvableMatcher[] row = new IncrementalUnsolvableMatcher[label];
+		for (int c = 0; c < label; c++) {
+			row[c] = new IncrementalUnsolvableMatcher();
+			for (int i = 0; i < counts[c]; i++) {
+				row[c].append('a');
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Maps the unsolvable factor of the projection onto the pair back into
+	 * the sequence by merging the positions of both labels.
+	 */
+	private static <T> UnsolvablePair<T> pair(List<T> labels, List<int[]> positions, int[] counts, int a, int b,
+			IncrementalUnsolvableMatcher matcher) {
+		final int[] first = positions.get(a);
+		final int[] second = positions.get(b);
+		final StringBuilder factor = new StringBuilder();
+		int start = -1;
+		int end = -1;
+		int i = 0;
+		int j = 0;
+		for (int letter = 0; letter <= matcher.getFactorEnd(); letter++) {
+			final boolean isA = j == counts[b] || (i < counts[a] && first[i] < second[j]);
+			final int position = isA ? first[i++] : second[j++];
+			if (letter == matcher.getFactorStart()) {
+				start = position;
+			}
+			if (letter >= matcher.getFactorStart()) {
+				factor.append(isA ? 'a' : 'b');
+			}
+			end = position + 1;
+		}
+		return new UnsolvablePair<>(labels.get(a), labels.get(b), start, end, factor.toString());
+	}
+
+	/**
+	 * Two labels whose projection is unsolvable, together with the location
+	 * of a minimal unsolvable factor of the projection.
+	 */
+	public static final class UnsolvablePair<T> {
+
+		private final T first;
+		private final T second;
+		private final int start;
+		private final int end;
+		private final String factor;
+
+		UnsolvablePair(T first, T second, int start, int end, String factor) {
+			this.first = first;
+			this.second = second;
+			this.start = start;
+			this.end = end;
+			this.factor = factor;
+		}
+
+		/**
+		 * Returns the label that is mapped to 'a'.
+		 */
+		public T getFirst() {
+			return first;
+		}
+
+		/**
+		 * Returns the label that is mapped to 'b'.
+		 */
+		public T getSecond() {
+			return second;
+		}
+
+		/**
+		 * Returns the index of the first letter of the factor in the
+		 * sequence.
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Returns the index after the last letter of the factor in the
+		 * sequence, i.e. the sequence becomes unsolvable at
+		 * <code>getEnd() - 1</code>.
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Returns the minimal unsolvable factor of the projection as word
+		 * over {a, b}.
+		 */
+		public String getFactor() {
+			return factor;
+		}
+
+		@Override
+		public String toString() {
+			return "(" + first + ", " + second + ") [" + start + ", " + end + ") " + factor;
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,22 +19,197 @@
 
 package uniol.matcher;
 
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Implementation that uses counting and the Knuth-Morris-Pratt failure function
  * for pattern matching.
  */
 public class PatternUBM implements UnsolvableBinwordMatcher {
 
+	private static final ThreadLocal<int[]> BORDER_TABLE = ThreadLocal.withInitial(() -> new int[64]);
+
+	// recorded only if Metrics.ENABLED
+	private static final LongAdder PATTERN_I_UNSOLVABLE = Metrics.counter("PatternUBM.patternI.unsolvable");
+	private static final LongAdder PATTERN_II_UNSOLVABLE = Metrics.counter("PatternUBM.patternII.unsolvable");
+	private static final LongAdder PATTERN_II_SITES = Metrics.counter("PatternUBM.patternII.sites");
+	private static final LongAdder KMP_TABLES = Metrics.counter("PatternUBM.patternII.kmpTables");
+	private static final LatencyHistogram PATTERN_I_LATENCY = Metrics.histogram("PatternUBM.patternI.latency");
+	private static final LatencyHistogram PATTERN_II_LATENCY = Metrics.histogram("PatternUBM.patternII.latency");
+
 	@Override
 	public boolean isUnsolvableBinaryWord(String word) {
 		if (word.isEmpty()) {
 			return false;
 		} else {
 			char[] chars = word.toCharArray();
+			if (Metrics.ENABLED) {
+				final long start = System.nanoTime();
+				final boolean patternI = step1(chars);
+				final long split = System.nanoTime();
+				return recordStages(start, split, patternI, !patternI && step2(chars));
+			}
 			return step1(chars) || step2(chars);
 		}
 	}
 
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		if (word.length <= BinaryWord.MAX_PACKED_LENGTH) {
+			return isUnsolvableBinaryWord(word.toLong(), word.length);
+		} else if (Metrics.ENABLED) {
+			final long start = System.nanoTime();
+			final boolean patternI = step1(word.bits, word.length);
+			final long split = System.nanoTime();
+			return recordStages(start, split, patternI, !patternI && step2(word.bits, word.length));
+		} else {
+			return step1(word.bits, word.length) || step2(word.bits, word.length);
+		}
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(long bits, int length) {
+		BinaryWord.checkPackedLength(length);
+		final long mask = BinaryWord.mask(length);
+		final long word = bits & mask;
+		final long inverted = ~bits & mask;
+		if (Metrics.ENABLED) {
+			final long start = System.nanoTime();
+			final boolean patternI = containsPatternI(inverted) || containsPatternI(word);
+			final long split = System.nanoTime();
+			final boolean patternII = !patternI
+					&& (containsPatternII(word, length) || containsPatternII(inverted, length));
+			return recordStages(start, split, patternI, patternII);
+		}
+		return containsPatternI(inverted) || containsPatternI(word)
+				|| containsPatternII(word, length) || containsPatternII(inverted, length);
+	}
+
+	/**
+	 * Records which pattern settled the result and how long the stages
+	 * took, where pattern II only ran if pattern I did not match.
+	 *
+	 * @param start
+	 *                time before pattern I
+	 * @param split
+	 *                time after pattern I and before pattern II
+	 * @return true if one of the patterns matched
+	 */
+	private static boolean recordStages(long start, long split, boolean patternI, boolean patternII) {
+		PATTERN_I_LATENCY.record(split - start);
+		if (patternI) {
+			PATTERN_I_UNSOLVABLE.increment();
+			return true;
+		}
+		PATTERN_II_LATENCY.record(System.nanoTime() - split);
+		if (patternII) {
+			PATTERN_II_UNSOLVABLE.increment();
+		}
+		return patternII;
+	}
+
+	/**
+	 * Returns the first factor found by {@link #isUnsolvableBinaryWord(String)}
+	 * while it checks the patterns in the order Ia, Ib, IIa, IIb.
+	 */
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		if (word.isEmpty()) {
+			return null;
+		}
+		final char[] chars = word.toCharArray();
+		UnsolvableFactor factor = findPatternI(chars, 'a');
+		if (factor == null) {
+			factor = findPatternI(chars, 'b');
+		}
+		if (factor == null) {
+			factor = findPatternII(chars, 'a', 'b');
+		}
+		if (factor == null) {
+			factor = findPatternII(chars, 'b', 'a');
+		}
+		return factor;
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		final int length = word.length;
+		UnsolvableFactor factor;
+		if (length <= BinaryWord.MAX_PACKED_LENGTH) {
+			final long bits = word.toLong();
+			final long inverted = ~bits & BinaryWord.mask(length);
+			factor = findPatternI(inverted, 0);
+			if (factor == null) {
+				factor = findPatternI(bits, 1);
+			}
+			if (factor == null) {
+				factor = findPatternII(bits, length, 0);
+			}
+			if (factor == null) {
+				factor = findPatternII(inverted, length, 1);
+			}
+		} else {
+			factor = findPatternI(word.bits, length, 0);
+			if (factor == null) {
+				factor = findPatternI(word.bits, length, 1);
+			}
+			if (factor == null) {
+				factor = findPatternII(word.bits, length, 0);
+			}
+			if (factor == null) {
+				factor = findPatternII(word.bits, length, 1);
+			}
+		}
+		return factor;
+	}
+
+	/**
+	 * Classifies words that fit into a <code>long</code> with the bit
+	 * parallel algorithm and without copying them into char arrays. Words
+	 * with other letters than 'a' and 'b' cannot be packed and take the
+	 * path of {@link #isUnsolvableBinaryWord(String)}, so that both give
+	 * the same answer.
+	 */
+	@Override
+	public BitSet classify(String[] words) {
+		final BitSet result = new BitSet(words.length);
+		for (int i = 0; i < words.length; i++) {
+			final String word = words[i];
+			final int length = word.length();
+			boolean packed = length <= BinaryWord.MAX_PACKED_LENGTH;
+			long bits = 0;
+			for (int j = 0; j < length && packed; j++) {
+				final char c = word.charAt(j);
+				if (c == 'b') {
+					bits |= 1L << j;
+				} else if (c != 'a') {
+					packed = false;
+				}
+			}
+			final boolean unsolvable = packed ? isUnsolvableBinaryWord(bits, length)
+					: isUnsolvableBinaryWord(word);
+			if (unsolvable) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void classify(long[] words, int length, long[] result) {
+		BinaryWord.checkBatch(words, length, result);
+		final long mask = BinaryWord.mask(length);
+		for (int i = 0; i < words.length; i++) {
+			final long word = words[i] & mask;
+			final long inverted = ~words[i] & mask;
+			if (containsPatternI(inverted) || containsPatternI(word) || containsPatternII(word, length)
+					|| containsPatternII(inverted, length)) {
+				result[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
 	/**
 	 * Returns true if pattern <code>Ia</code> or pattern <code>Ib</code>
 	 * matches the given word.
@@ -69,38 +244,186 @@ public class PatternUBM implements UnsolvableBinwordMatcher {
 	 * @return true if the input word contains a subsequence of pattern I
 	 */
 	boolean containsPatternI(final char[] word, final char delim) {
-		int delimiterCount = 0;
+		return findPatternI(word, delim) != null;
+	}
+
+	/**
+	 * Variant of {@link #containsPatternI(char[], char)} that returns the
+	 * first match.
+	 *
+	 * @return the first factor that matches pattern I, or null
+	 */
+	UnsolvableFactor findPatternI(final char[] word, final char delim) {
+		// positions of the last two delimiters, -1 if there are fewer
+		int first = -1;
+		int second = -1;
+		int x = 0;
+		int y = 0;
 
-		int firstDelimIndex = word.length;
 		for (int i = 0; i < word.length; i++) {
 			if (word[i] == delim) {
-				firstDelimIndex = i;
-				delimiterCount += 1;
-				break;
+				if (first >= 0 && x > y + 2) {
+					return UnsolvableFactor.patternI(delim == 'a' ? 0 : 1, first, x, y);
+				}
+				x = y;
+				y = 0;
+				first = second;
+				second = i;
+			} else {
+				y = y + 1;
 			}
+		}
 
+		return null;
+	}
+
+	/**
+	 * Packed variant of {@link #step1(char[])} for words that do not fit into
+	 * a single <code>long</code>.
+	 */
+	boolean step1(final long[] word, final int length) {
+		return containsPatternI(word, length, 0) || containsPatternI(word, length, 1);
+	}
+
+	/**
+	 * Packed variant of {@link #containsPatternI(char[], char)}.
+	 *
+	 * @param word
+	 *                bit array that holds the input word
+	 * @param length
+	 *                number of letters in the word
+	 * @param delim
+	 *                letter of pattern I that separates the blocks that need
+	 *                to be counted, 0 for 'a' and 1 for 'b'
+	 * @return true if the input word contains a subsequence of pattern I
+	 */
+	boolean containsPatternI(final long[] word, final int length, final int delim) {
+		return findPatternI(word, length, delim) != null;
+	}
+
+	/**
+	 * Packed variant of {@link #findPatternI(char[], char)}. Like
+	 * {@link #findPatternI(long, int)} this jumps from delimiter to delimiter
+	 * with {@link Long#numberOfTrailingZeros(long)}, and a word without
+	 * three consecutive letters other than the delimiter is rejected 64
+	 * letters at a time, because pattern I needs x ≥ 3.
+	 */
+	UnsolvableFactor findPatternI(final long[] word, final int length, final int delim) {
+		final int count = BinaryWord.wordCount(length);
+		if (!containsRun3(word, count, length, delim ^ 1)) {
+			return null;
 		}
 
-		int x = 0;
-		int y = 0;
+		// -1 marks that no delimiter or no block has been seen yet
+		int previous = -1;
+		int x = -1;
+		int start = -1;
 
-		for (int i = firstDelimIndex + 1; i < word.length; i++) {
-			if (word[i] == delim) {
-				delimiterCount += 1;
-				if (x > y + 2 && delimiterCount >= 3) {
-					return true;
-				} else {
+		for (int k = 0; k < count; k++) {
+			long delims = delims(word, k, count, length, delim);
+			final int base = k * Long.SIZE;
+			while (delims != 0) {
+				final int next = base + Long.numberOfTrailingZeros(delims);
+				delims &= delims - 1;
+				if (previous >= 0) {
+					final int y = next - previous - 1;
+					if (x > y + 2) {
+						return UnsolvableFactor.patternI(delim, start, x, y);
+					}
 					x = y;
-					y = 0;
+					start = previous;
+				}
+				previous = next;
+				// further adjacent delimiters only repeat x = y = 0
+				final int shift = next - base + 1;
+				if (x == 0 && shift < Long.SIZE) {
+					final int adjacent = Long.numberOfTrailingZeros(~(delims >>> shift));
+					if (adjacent > 0) {
+						delims &= ~(BinaryWord.mask(adjacent) << shift);
+						previous += adjacent;
+						start = previous - 1;
+					}
 				}
-			} else {
-				y = y + 1;
 			}
 		}
 
+		return null;
+	}
+
+	/**
+	 * Returns the letters <code>64k .. 64k+63</code> of the word as a mask
+	 * with a set bit at every occurrence of the given letter. Bits past the
+	 * end of the word are clear.
+	 */
+	private static long delims(final long[] word, final int k, final int count, final int length,
+			final int letter) {
+		final long bits = letter == 1 ? word[k] : ~word[k];
+		return k == count - 1 ? bits & BinaryWord.mask(length - k * Long.SIZE) : bits;
+	}
+
+	/**
+	 * Returns true if the word contains the given letter three times in a
+	 * row.
+	 */
+	private static boolean containsRun3(final long[] word, final int count, final int length, final int letter) {
+		for (int k = 0; k < count; k++) {
+			final long current = delims(word, k, count, length, letter);
+			final long next = k + 1 < count ? delims(word, k + 1, count, length, letter) : 0;
+			if ((current & (current >>> 1 | next << 63) & (current >>> 2 | next << 62)) != 0) {
+				return true;
+			}
+		}
 		return false;
 	}
 
+	/**
+	 * Checks if a word of at most 64 letters contains pattern I. Instead of
+	 * scanning letter by letter this jumps from delimiter to delimiter.
+	 *
+	 * @param delims
+	 *                word with a set bit at every position of the delimiter
+	 *                letter
+	 * @return true if the input word contains a subsequence of pattern I
+	 */
+	boolean containsPatternI(long delims) {
+		return findPatternI(delims, 0) != null;
+	}
+
+	/**
+	 * Variant of {@link #containsPatternI(long)} that returns the first
+	 * match.
+	 *
+	 * @param delim
+	 *                delimiter letter that the set bits stand for, 0 for
+	 *                'a' and 1 for 'b'
+	 * @return the first factor that matches pattern I, or null
+	 */
+	UnsolvableFactor findPatternI(long delims, int delim) {
+		if (delims == 0) {
+			return null;
+		}
+
+		int previous = Long.numberOfTrailingZeros(delims);
+		delims &= delims - 1;
+		// -1 marks that no block has been completed yet
+		int x = -1;
+		int start = -1;
+
+		while (delims != 0) {
+			final int next = Long.numberOfTrailingZeros(delims);
+			delims &= delims - 1;
+			final int y = next - previous - 1;
+			if (x > y + 2) {
+				return UnsolvableFactor.patternI(delim, start, x, y);
+			}
+			x = y;
+			start = previous;
+			previous = next;
+		}
+
+		return null;
+	}
+
 	/**
 	 * Returns true if pattern <code>IIa</code> or pattern <code>IIb</code>
 	 * matches the given word.
@@ -135,34 +458,241 @@ public class PatternUBM implements UnsolvableBinwordMatcher {
 	 *                'b'
 	 * @return true if the input word contains a subsequence of pattern II
 	 */
-	boolean containsPatternII(char[] word, final char a, final char b) {
+	boolean containsPatternII(final char[] word, final char a, final char b) {
+		return findPatternII(word, a, b) != null;
+	}
+
+	/**
+	 * Variant of {@link #containsPatternII(char[], char, char)} that returns
+	 * the first match.
+	 *
+	 * @return the first factor that matches pattern II, or null
+	 */
+	UnsolvableFactor findPatternII(final char[] word, final char a, final char b) {
+		final int[] f = borderTable(word.length);
 		for (int i = 0; i < word.length - 1; i++) {
 			// When v[i..i+1] = ab is found...
 			if (word[i] == a && word[i + 1] == b) {
-				// Temporarily swap v[i] and v[i+1]
-				word[i] = b;
-				word[i + 1] = a;
-
-				// Build border table for suffix of v starting
-				// at i (v[i..]) with KMP
-				int[] f = kmpFailureFunction(word, i);
-				// Search for a repeating string s in v[i..j] with v[i..j] = s^n
-				for (int j = i + 1; j < f.length - 1; j++) {
-					// There is a repetition when the period length divides the string length (j - i + 1)
-					if (f[j] > 1 && (j - i + 1) % (j - i + 1 - f[j]) == 0 && word[j + 1] == a) {
-						// Reverse temporary swap
-						word[i] = a;
-						word[i + 1] = b;
-						return true;
-					}
+				if (Metrics.ENABLED) {
+					PATTERN_II_SITES.increment();
 				}
+				final UnsolvableFactor factor = findSwappedPower(word, i, a, b, f);
+				if (factor != null) {
+					return factor;
+				}
+			}
+		}
+		return null;
+	}
 
-				// Reverse temporary swap
-				word[i] = a;
-				word[i + 1] = b;
+	/**
+	 * Checks if v[i..j] with v[i] and v[i+1] swapped is a repetition s^n
+	 * that is followed by v[j+1] = a. The border table of the swapped
+	 * suffix v[i..] is built with KMP into the given buffer and every prefix
+	 * is checked as soon as its border is known. The input word is not
+	 * modified.
+	 *
+	 * @param word
+	 *                input string that is being searched
+	 * @param pIdx
+	 *                index i of the "ab" site
+	 * @param a
+	 *                character 'a'
+	 * @param b
+	 *                character 'b'
+	 * @param f
+	 *                buffer for the border table, indexed relative to
+	 *                pIdx
+	 * @return the factor that ends with the first repetition followed by
+	 *         'a', or null
+	 */
+	private static UnsolvableFactor findSwappedPower(final char[] word, final int pIdx, final char a,
+			final char b, final int[] f) {
+		if (Metrics.ENABLED) {
+			KMP_TABLES.increment();
+		}
+		f[0] = 0;
+
+		int i = 1;
+		int j = 0;
+
+		// the last letter can only terminate a repetition
+		int patternLength = word.length - pIdx - 1;
+		while (i < patternLength) {
+			if (swappedCharAt(word, pIdx, i, a, b) == swappedCharAt(word, pIdx, j, a, b)) {
+				f[i] = j + 1;
+				// There is a repetition when the period length divides the prefix length (i + 1)
+				if (f[i] > 1 && (i + 1) % (i + 1 - f[i]) == 0 && word[pIdx + i + 1] == a) {
+					return swappedPowerFactor(a == 'a' ? 0 : 1, pIdx, i + 1, i + 1 - f[i]);
+				}
+				i = i + 1;
+				j = j + 1;
+			} else if (j == 0) {
+				f[i] = 0;
+				i = i + 1;
+			} else {
+				j = f[j - 1];
 			}
 		}
-		return false;
+
+		return null;
+	}
+
+	/**
+	 * Returns letter <code>index</code> of the suffix starting at the "ab"
+	 * site <code>pIdx</code> with the first two letters swapped.
+	 */
+	private static char swappedCharAt(char[] word, int pIdx, int index, char a, char b) {
+		if (index >= 2) {
+			return word[pIdx + index];
+		}
+		return index == 0 ? b : a;
+	}
+
+	/**
+	 * Packed variant of {@link #step2(char[])} for words that do not fit into
+	 * a single <code>long</code>.
+	 */
+	boolean step2(final long[] word, final int length) {
+		return containsPatternII(word, length, 0) || containsPatternII(word, length, 1);
+	}
+
+	/**
+	 * Packed variant of {@link #containsPatternII(char[], char, char)}. The
+	 * input is never modified, the swap of the "ab" site is applied while
+	 * reading the letters instead.
+	 *
+	 * @param word
+	 *                bit array that holds the input word
+	 * @param length
+	 *                number of letters in the word
+	 * @param a
+	 *                letter 'a' of the pattern, 0 for 'a' and 1 for 'b'
+	 * @return true if the input word contains a subsequence of pattern II
+	 */
+	boolean containsPatternII(final long[] word, final int length, final int a) {
+		return findPatternII(word, length, a) != null;
+	}
+
+	/**
+	 * Packed variant of {@link #findPatternII(char[], char, char)}.
+	 */
+	UnsolvableFactor findPatternII(final long[] word, final int length, final int a) {
+		final int[] f = borderTable(length);
+		for (int i = 0; i < length - 1; i++) {
+			// When v[i..i+1] = ab is found...
+			if (BinaryWord.bitAt(word, i) == a && BinaryWord.bitAt(word, i + 1) != a) {
+				if (Metrics.ENABLED) {
+					PATTERN_II_SITES.increment();
+				}
+				final UnsolvableFactor factor = findSwappedPower(word, length, i, a, f);
+				if (factor != null) {
+					return factor;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Packed variant of
+	 * {@link #findSwappedPower(char[], int, char, char, int[])}.
+	 */
+	private static UnsolvableFactor findSwappedPower(final long[] word, final int length, final int pIdx,
+			final int a, final int[] f) {
+		if (Metrics.ENABLED) {
+			KMP_TABLES.increment();
+		}
+		f[0] = 0;
+
+		int i = 1;
+		int j = 0;
+
+		int patternLength = length - pIdx - 1;
+		while (i < patternLength) {
+			if (swappedBitAt(word, pIdx, i) == swappedBitAt(word, pIdx, j)) {
+				f[i] = j + 1;
+				if (f[i] > 1 && (i + 1) % (i + 1 - f[i]) == 0
+						&& BinaryWord.bitAt(word, pIdx + i + 1) == a) {
+					return swappedPowerFactor(a, pIdx, i + 1, i + 1 - f[i]);
+				}
+				i = i + 1;
+				j = j + 1;
+			} else if (j == 0) {
+				f[i] = 0;
+				i = i + 1;
+			} else {
+				j = f[j - 1];
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the factor of pattern II whose swapped form is a power of the
+	 * given length and period, followed by the final letter 'a'.
+	 */
+	private static UnsolvableFactor swappedPowerFactor(int a, int start, int powerLength, int period) {
+		return UnsolvableFactor.patternII(a, start, period - 2, powerLength / period - 1);
+	}
+
+	/**
+	 * Checks if a word of at most 64 letters contains pattern IIa. Pattern IIb
+	 * is found by passing the inverted word. Instead of building a border
+	 * table for every "ab" site, all periods of the swapped suffix are tested
+	 * with word-wide comparisons of the suffix against its own shift.
+	 *
+	 * @param word
+	 *                letters of the input word
+	 * @param length
+	 *                number of letters in the word
+	 * @return true if the input word contains a subsequence of pattern IIa
+	 */
+	boolean containsPatternII(final long word, final int length) {
+		return findPatternII(word, length, 0) != null;
+	}
+
+	/**
+	 * Variant of {@link #containsPatternII(long, int)} that returns the
+	 * first match.
+	 *
+	 * @param a
+	 *                letter 'a' of the pattern that the cleared bits stand
+	 *                for, 0 for 'a' and 1 for 'b'
+	 * @return the first factor that matches pattern II, or null
+	 */
+	UnsolvableFactor findPatternII(final long word, final int length, final int a) {
+		// all positions i with v[i..i+1] = ab
+		long sites = ~word & (word >>> 1) & BinaryWord.mask(length - 1);
+
+		while (sites != 0) {
+			final int i = Long.numberOfTrailingZeros(sites);
+			sites &= sites - 1;
+			if (Metrics.ENABLED) {
+				PATTERN_II_SITES.increment();
+			}
+
+			// suffix v[i..] with v[i] and v[i+1] swapped
+			final long u = (word >>> i) ^ 0b11;
+			final int suffixLength = length - i;
+
+			// v[i..i+mp-1] has to be a power s^m with m >= 2 and
+			// period p that is followed by an 'a' at v[i+mp]
+			for (int p = 2; 2 * p < suffixLength; p++) {
+				final long mismatches = (u ^ (u >>> p)) & BinaryWord.mask(suffixLength - p);
+				final int periodic = mismatches == 0 ? suffixLength
+						: Long.numberOfTrailingZeros(mismatches) + p;
+				final int limit = Math.min(periodic, suffixLength - 1);
+				for (int end = 2 * p; end <= limit; end += p) {
+					if (((u >>> end) & 1) == 0) {
+						return swappedPowerFactor(a, i, end, p);
+					}
+				}
+			}
+		}
+
+		return null;
 	}
 
 	/**
@@ -180,6 +710,9 @@ public class PatternUBM implements UnsolvableBinwordMatcher {
 	 *         p.length
 	 */
 	int[] kmpFailureFunction(char[] p, int pIdx) {
+		if (Metrics.ENABLED) {
+			KMP_TABLES.increment();
+		}
 		int[] f = new int[p.length];
 		f[pIdx] = 0;
 
@@ -203,6 +736,29 @@ public class PatternUBM implements UnsolvableBinwordMatcher {
 		return f;
 	}
 
+	/**
+	 * Returns a border table buffer with at least the given length. There is
+	 * one buffer per thread, so matcher instances can be shared between
+	 * threads.
+	 */
+	private static int[] borderTable(int length) {
+		int[] f = BORDER_TABLE.get();
+		if (f.length < length) {
+			f = new int[Math.max(length, 2 * f.length)];
+			BORDER_TABLE.set(f);
+		}
+		return f;
+	}
+
+	/**
+	 * Returns letter <code>index</code> of the pattern starting at
+	 * <code>pIdx</code> whose first two letters are swapped.
+	 */
+	private static int swappedBitAt(long[] p, int pIdx, int index) {
+		final int bit = BinaryWord.bitAt(p, pIdx + index);
+		return index < 2 ? bit ^ 1 : bit;
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,148 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+/**
+ * Implementation that finds pattern II with longest common extension queries
+ * in O(n log n) time. Pattern I is matched in linear time like in
+ * {@link PatternUBM}.
+ *
+ * <p>
+ * Let i be an "ab" site and t = i + p a "ba" site of the word v, and let l be
+ * the length of the longest common extension of the suffixes starting at i + 2
+ * and t + 2. The run of period p that starts at i + 2 ends with the mismatch at
+ * t + 2 + l, and every letter <code>v[i + mp]</code> inside that run is a 'b'.
+ * Therefore <code>abw(baw)<sup>k</sup>a</code> with |w| = p - 2 occurs at i
+ * exactly if the mismatch lies inside the word, l + 2 ≥ p and p divides l + 2.
+ * </p>
+ *
+ * <p>
+ * Only pairs with l ≥ p - 2 qualify, i.e. <code>v[i+2..t+p-1] = w ba w</code>.
+ * For |w| in [2<sup>k</sup>, 2<sup>k+1</sup>) the first copy of w contains a
+ * multiple q of 2<sup>k</sup>, and i follows from q and p by one backward
+ * extension, because <code>v[i+1] != v[t+1]</code>. This gives n candidate
+ * pairs for every k, each checked with a constant number of queries.
+ * </p>
+ */
+public class RepetitionUBM implements UnsolvableBinwordMatcher {
+
+	private final PatternUBM patternI = new PatternUBM();
+
+	@Override
+	public boolean isUnsolvableBinaryWord(String word) {
+		return isUnsolvableBinaryWord(BinaryWord.valueOf(word));
+	}
+
+	@Override
+	public boolean isUnsolvableBinaryWord(BinaryWord word) {
+		return patternI.step1(word.bits, word.length) || containsPatternII(word);
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(String word) {
+		return findUnsolvableFactor(BinaryWord.valueOf(word));
+	}
+
+	@Override
+	public UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		UnsolvableFactor factor = patternI.findPatternI(word.bits, word.length, 0);
+		if (factor == null) {
+			factor = patternI.findPatternI(word.bits, word.length, 1);
+		}
+		if (factor == null) {
+			factor = findPatternII(word);
+		}
+		return factor;
+	}
+
+	/**
+	 * Returns true if pattern <code>IIa</code> or pattern <code>IIb</code>
+	 * matches the given word.
+	 */
+	boolean containsPatternII(BinaryWord word) {
+		return findPatternII(word) != null;
+	}
+
+	/**
+	 * Variant of {@link #containsPatternII(BinaryWord)} that returns the
+	 * first match.
+	 *
+	 * @return a factor that matches pattern II, or null
+	 */
+	UnsolvableFactor findPatternII(BinaryWord word) {
+		final int n = word.length;
+		if (n < 5) {
+			return null;
+		}
+		final long[] v = word.bits;
+		final LongestCommonExtension lce = new LongestCommonExtension(word);
+
+		// w is empty
+		for (int i = 0; i + 3 < n; i++) {
+			final UnsolvableFactor factor = match(v, n, lce, i, i + 2);
+			if (factor != null) {
+				return factor;
+			}
+		}
+
+		// |w| = h in [step, 2 * step) and q is the multiple of step in
+		// the first copy of w
+		for (int step = 1; step < n; step <<= 1) {
+			for (int q = 0; q < n; q += step) {
+				for (int h = step; h < 2 * step && q + h + 2 < n; h++) {
+					final int p = h + 2;
+					final int i = q - 2 - lce.backward(q - 1, q - 1 + p);
+					if (i >= 0 && q - i - 2 < h) {
+						final UnsolvableFactor factor = match(v, n, lce, i, i + p);
+						if (factor != null) {
+							return factor;
+						}
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if i is a site, t is the swapped site, and the run of period
+	 * t - i that starts at i + 2 ends with the final letter of pattern II.
+	 *
+	 * @return the matching factor, or null
+	 */
+	private static UnsolvableFactor match(long[] v, int n, LongestCommonExtension lce, int i, int t) {
+		if (t + 1 >= n) {
+			return null;
+		}
+		final int x = BinaryWord.bitAt(v, i);
+		if (BinaryWord.bitAt(v, i + 1) == x || BinaryWord.bitAt(v, t) == x || BinaryWord.bitAt(v, t + 1) != x) {
+			return null;
+		}
+		final int p = t - i;
+		final int l = lce.forward(i + 2, t + 2);
+		if (t + 2 + l < n && l + 2 >= p && (l + 2) % p == 0) {
+			return UnsolvableFactor.patternII(x, i, p - 2, (l + 2) / p);
+		}
+		return null;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
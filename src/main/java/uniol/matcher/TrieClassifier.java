@@ -0,0 +1,180 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Batch classifier for words that share long prefixes, such as all extensions
+ * of one firing sequence. The words are inserted into a binary trie that is
+ * stored in arrays, and a depth-first traversal carries an
+ * {@link IncrementalUnsolvableMatcher} down the edges. Every prefix is
+ * therefore checked once, no matter how many words start with it, and the
+ * words below an unsolvable prefix are labeled without appending any further
+ * letters.
+ *
+ * <p>
+ * A single matcher is used for the whole traversal. Before the traversal
+ * enters a sibling subtree, the matcher is rolled back to the checkpoint of
+ * the parent, which undoes the letters of the previous subtree. The traversal
+ * therefore appends exactly one letter per trie node above the unsolvable
+ * prefixes and removes each of them at most once. Instances are not
+ * thread-safe.
+ * </p>
+ */
+public class TrieClassifier {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// children[2 * node + c] is the child for letter c, 0 if there is
+	// none, since the root is no child
+	private int[] children;
+	// firstWord[node] is the index of a word that ends at the node or -1,
+	// and nextWord[word] the next word that ends at the same node
+	private int[] firstWord;
+	private int[] nextWord;
+	private int nodeCount;
+	private long appendCount;
+	private long rollbackCount;
+	private final IncrementalUnsolvableMatcher matcher = new IncrementalUnsolvableMatcher();
+
+	/**
+	 * Classifies a batch of words like
+	 * {@link UnsolvableBinwordMatcher#classify(String[])}.
+	 *
+	 * @return the set of the indices of the unsolvable words
+	 * @throws IllegalArgumentException
+	 *                 if a word contains a letter other than 'a' and 'b'
+	 */
+	public BitSet classify(String[] words) {
+		build(words);
+		final BitSet result = new BitSet(words.length);
+		appendCount = 0;
+		rollbackCount = 0;
+		matcher.reset();
+		matcher.checkpoint();
+
+		// pending nodes as the edge from their parent, -1 for the root,
+		// and the length of their word, or -1 below an unsolvable prefix
+		int[] stackEdge = new int[INITIAL_CAPACITY];
+		int[] stackDepth = new int[INITIAL_CAPACITY];
+		stackEdge[0] = -1;
+		int stackSize = 1;
+		while (stackSize > 0) {
+			stackSize--;
+			final int edge = stackEdge[stackSize];
+			final int depth = stackDepth[stackSize];
+			final int node = edge < 0 ? 0 : children[edge];
+			boolean unsolvable = depth < 0;
+			if (depth > 0) {
+				// the matcher may still hold the letters of the previous
+				// subtree, only the word of the parent is kept
+				rollbackCount += matcher.length() - (depth - 1);
+				matcher.rollback(depth - 1);
+				unsolvable = matcher.append((edge & 1) == 0 ? 'a' : 'b');
+				appendCount++;
+			}
+			if (unsolvable) {
+				for (int word = firstWord[node]; word >= 0; word = nextWord[word]) {
+					result.set(word);
+				}
+			}
+			// the 'a' child is pushed last, so that it follows without a
+			// rollback
+			for (int letter = 1; letter >= 0; letter--) {
+				if (children[2 * node + letter] != 0) {
+					if (stackSize == stackEdge.length) {
+						stackEdge = Arrays.copyOf(stackEdge, 2 * stackSize);
+						stackDepth = Arrays.copyOf(stackDepth, 2 * stackSize);
+					}
+					stackEdge[stackSize] = 2 * node + letter;
+					stackDepth[stackSize] = unsolvable ? -1 : depth + 1;
+					stackSize++;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of nodes of the trie of the last classified batch,
+	 * including the root for the empty word.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the number of letters that were appended to the matcher
+	 * while classifying the last batch. Letters below an unsolvable prefix
+	 * are not appended.
+	 */
+	public long getAppendCount() {
+		return appendCount;
+	}
+
+	/**
+	 * Returns the number of letters that were removed from the matcher by
+	 * rollbacks while classifying the last batch.
+	 */
+	public long getRollbackCount() {
+		return rollbackCount;
+	}
+
+	private void build(String[] words) {
+		children = new int[2 * INITIAL_CAPACITY];
+		firstWord = new int[INITIAL_CAPACITY];
+		nextWord = new int[words.length];
+		firstWord[0] = -1;
+		nodeCount = 1;
+		for (int w = 0; w < words.length; w++) {
+			final String word = words[w];
+			int node = 0;
+			for (int i = 0; i < word.length(); i++) {
+				final char c = word.charAt(i);
+				if (c != 'a' && c != 'b') {
+					throw new IllegalArgumentException("Not a binary word: '" + word + "'");
+				}
+				final int edge = 2 * node + c - 'a';
+				if (children[edge] == 0) {
+					// addNode may replace the array
+					final int child = addNode();
+					children[edge] = child;
+				}
+				node = children[edge];
+			}
+			nextWord[w] = firstWord[node];
+			firstWord[node] = w;
+		}
+	}
+
+	private int addNode() {
+		if (nodeCount == firstWord.length) {
+			children = Arrays.copyOf(children, 4 * nodeCount);
+			firstWord = Arrays.copyOf(firstWord, 2 * nodeCount);
+		}
+		firstWord[nodeCount] = -1;
+		return nodeCount++;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
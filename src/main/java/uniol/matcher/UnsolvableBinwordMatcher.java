@@ -19,6 +19,8 @@
 
 package uniol.matcher;
 
+import java.util.BitSet;
+
 /**
  * Interface for different matcher implementations that can detect unsolvable
  * binary words. A word is unsolvable if it cannot be generated by a free Petri
@@ -35,6 +37,104 @@ public interface UnsolvableBinwordMatcher {
 	 */
 	boolean isUnsolvableBinaryWord(String word);
 
+	/**
+	 * Returns if the given packed binary word is unsolvable by a free Petri
+	 * net. The default implementation converts the word to a string.
+	 *
+	 * @param word
+	 *                a packed binary word
+	 * @return true if the word is unsolvable
+	 */
+	default boolean isUnsolvableBinaryWord(BinaryWord word) {
+		return isUnsolvableBinaryWord(word.toString());
+	}
+
+	/**
+	 * Returns if the binary word stored in the lowest <code>length</code>
+	 * bits of <code>bits</code> is unsolvable by a free Petri net. Bit i is
+	 * letter i, a cleared bit is an 'a' and a set bit is a 'b'.
+	 *
+	 * @param bits
+	 *                letters of the word
+	 * @param length
+	 *                number of letters, at most
+	 *                {@link BinaryWord#MAX_PACKED_LENGTH}
+	 * @return true if the word is unsolvable
+	 */
+	default boolean isUnsolvableBinaryWord(long bits, int length) {
+		return isUnsolvableBinaryWord(BinaryWord.valueOf(bits, length));
+	}
+
+	/**
+	 * Returns an unsolvable factor of the given word with the pattern it
+	 * matches, or null if the word is solvable. The default implementation
+	 * locates the factor of unsolvable words with an additional
+	 * {@link PatternUBM} scan, implementations that can report the factor
+	 * from their own scan should override it.
+	 *
+	 * @param word
+	 *                a binary word over the alphabet {a, b}
+	 * @return location and parameters of an unsolvable factor, or null
+	 */
+	default UnsolvableFactor findUnsolvableFactor(String word) {
+		return isUnsolvableBinaryWord(word) ? new PatternUBM().findUnsolvableFactor(word) : null;
+	}
+
+	/**
+	 * Packed variant of {@link #findUnsolvableFactor(String)}.
+	 *
+	 * @param word
+	 *                a packed binary word
+	 * @return location and parameters of an unsolvable factor, or null
+	 */
+	default UnsolvableFactor findUnsolvableFactor(BinaryWord word) {
+		return isUnsolvableBinaryWord(word) ? new PatternUBM().findUnsolvableFactor(word) : null;
+	}
+
+	/**
+	 * Classifies a batch of words. The default implementation calls
+	 * {@link #isUnsolvableBinaryWord(String)} for every word.
+	 *
+	 * @param words
+	 *                binary words over the alphabet {a, b}
+	 * @return bitmap in which bit i is set if <code>words[i]</code> is
+	 *         unsolvable
+	 */
+	default BitSet classify(String[] words) {
+		final BitSet result = new BitSet(words.length);
+		for (int i = 0; i < words.length; i++) {
+			if (isUnsolvableBinaryWord(words[i])) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Classifies a batch of packed words of the same length. The default
+	 * implementation calls {@link #isUnsolvableBinaryWord(long, int)} for
+	 * every word.
+	 *
+	 * @param words
+	 *                packed words, one per element
+	 * @param length
+	 *                number of letters of every word, at most
+	 *                {@link BinaryWord#MAX_PACKED_LENGTH}
+	 * @param result
+	 *                bitmap in which bit i % 64 of element i / 64 is set if
+	 *                <code>words[i]</code> is unsolvable, the first
+	 *                <code>ceil(words.length / 64)</code> elements are
+	 *                overwritten
+	 */
+	default void classify(long[] words, int length, long[] result) {
+		BinaryWord.checkBatch(words, length, result);
+		for (int i = 0; i < words.length; i++) {
+			if (isUnsolvableBinaryWord(words[i], length)) {
+				result[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
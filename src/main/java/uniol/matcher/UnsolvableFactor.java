@@ -0,0 +1,201 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+/**
+ * Location of an unsolvable factor in a word together with the pattern it
+ * matches and the parameters of that pattern.
+ *
+ * <pre>
+ * Ia: ab<sup>x</sup>ab<sup>y</sup>a     Ib: ba<sup>x</sup>ba<sup>y</sup>b     where x > y + 2, y ≥ 0
+ *
+ * IIa: abw(baw)<sup>k</sup>a   IIb: baw(abw)<sup>k</sup>b   where k ≥ 1, w ∈ {a, b}*
+ * </pre>
+ */
+public final class UnsolvableFactor {
+
+	/**
+	 * The patterns that unsolvable factors are matched against.
+	 */
+	public enum Pattern {
+		IA, IB, IIA, IIB;
+
+		/**
+		 * Returns the pattern I variant whose delimiter is the given
+		 * letter, 0 for 'a' and 1 for 'b'.
+		 */
+		static Pattern patternI(int delim) {
+			return delim == 0 ? IA : IB;
+		}
+
+		/**
+		 * Returns the pattern II variant whose letter 'a' is the given
+		 * letter, 0 for 'a' and 1 for 'b'.
+		 */
+		static Pattern patternII(int a) {
+			return a == 0 ? IIA : IIB;
+		}
+
+		public boolean isPatternI() {
+			return this == IA || this == IB;
+		}
+	}
+
+	private final Pattern pattern;
+	private final int start;
+	private final int end;
+	private final int first;
+	private final int second;
+
+	private UnsolvableFactor(Pattern pattern, int start, int end, int first, int second) {
+		this.pattern = pattern;
+		this.start = start;
+		this.end = end;
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * Creates a factor of pattern I that starts with the first delimiter at
+	 * the given index.
+	 */
+	static UnsolvableFactor patternI(int delim, int start, int x, int y) {
+		return new UnsolvableFactor(Pattern.patternI(delim), start, start + x + y + 3, x, y);
+	}
+
+	/**
+	 * Creates a factor of pattern II that starts at the "ab" site with the
+	 * given index.
+	 */
+	static UnsolvableFactor patternII(int a, int start, int wLength, int k) {
+		return new UnsolvableFactor(Pattern.patternII(a), start, start + (k + 1) * (wLength + 2) + 1, wLength,
+				k);
+	}
+
+	/**
+	 * Returns the same factor in a word that has the given number of
+	 * additional letters before it.
+	 */
+	UnsolvableFactor shift(int offset) {
+		return new UnsolvableFactor(pattern, start + offset, end + offset, first, second);
+	}
+
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Returns the index of the first letter of the factor.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the index after the last letter of the factor.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	public int length() {
+		return end - start;
+	}
+
+	/**
+	 * Returns the length x of the first block of pattern I.
+	 *
+	 * @throws IllegalStateException
+	 *                 if the factor matches pattern II
+	 */
+	public int getX() {
+		checkPattern(true);
+		return first;
+	}
+
+	/**
+	 * Returns the length y of the second block of pattern I.
+	 *
+	 * @throws IllegalStateException
+	 *                 if the factor matches pattern II
+	 */
+	public int getY() {
+		checkPattern(true);
+		return second;
+	}
+
+	/**
+	 * Returns the length of w in pattern II. The word w itself starts at
+	 * <code>getStart() + 2</code>.
+	 *
+	 * @throws IllegalStateException
+	 *                 if the factor matches pattern I
+	 */
+	public int getWLength() {
+		checkPattern(false);
+		return first;
+	}
+
+	/**
+	 * Returns the number k of repetitions in pattern II.
+	 *
+	 * @throws IllegalStateException
+	 *                 if the factor matches pattern I
+	 */
+	public int getK() {
+		checkPattern(false);
+		return second;
+	}
+
+	private void checkPattern(boolean patternI) {
+		if (pattern.isPatternI() != patternI) {
+			throw new IllegalStateException("Parameter not defined for pattern " + pattern);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof UnsolvableFactor)) {
+			return false;
+		}
+		UnsolvableFactor other = (UnsolvableFactor) obj;
+		return pattern == other.pattern && start == other.start && end == other.end && first == other.first
+				&& second == other.second;
+	}
+
+	@Override
+	public int hashCode() {
+		return (((pattern.hashCode() * 31 + start) * 31 + end) * 31 + first) * 31 + second;
+	}
+
+	@Override
+	public String toString() {
+		if (pattern.isPatternI()) {
+			return pattern + "[" + start + ", " + end + ") x=" + first + " y=" + second;
+		}
+		return pattern + "[" + start + ", " + end + ") |w|=" + first + " k=" + second;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
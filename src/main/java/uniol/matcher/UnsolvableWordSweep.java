@@ -0,0 +1,122 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exhaustively counts the binary words of a given length that a matcher
+ * classifies as unsolvable. The index space of all 2<sup>n</sup> words is
+ * split recursively into ranges that are counted on a {@link ForkJoinPool}.
+ * The matcher is shared between all worker threads and therefore has to be
+ * thread-safe.
+ */
+public class UnsolvableWordSweep {
+
+	/**
+	 * Default number of words below which a range is counted sequentially.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1 << 14;
+
+	private final UnsolvableBinwordMatcher matcher;
+	private final ForkJoinPool pool;
+	private final long threshold;
+
+	/**
+	 * Creates a sweep that runs on the common pool.
+	 */
+	public UnsolvableWordSweep(UnsolvableBinwordMatcher matcher) {
+		this(matcher, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * @param matcher
+	 *                thread-safe matcher that classifies the words
+	 * @param pool
+	 *                pool that runs the counting tasks
+	 * @param threshold
+	 *                number of words below which a range is not split
+	 *                any further
+	 */
+	public UnsolvableWordSweep(UnsolvableBinwordMatcher matcher, ForkJoinPool pool, long threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+		}
+		this.matcher = matcher;
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Returns the number of unsolvable words of the given length.
+	 */
+	public long countUnsolvable(int length) {
+		final BinaryWordEnumerator enumerator = new BinaryWordEnumerator(length);
+		return pool.invoke(new CountTask(enumerator, 0, enumerator.size()));
+	}
+
+	/**
+	 * Returns the number of unsolvable words for every length in
+	 * <code>[minLength, maxLength]</code>.
+	 *
+	 * @return map from word length to number of unsolvable words
+	 */
+	public SortedMap<Integer, Long> countUnsolvable(int minLength, int maxLength) {
+		final SortedMap<Integer, Long> counts = new TreeMap<>();
+		for (int length = minLength; length <= maxLength; length++) {
+			counts.put(length, countUnsolvable(length));
+		}
+		return counts;
+	}
+
+	private class CountTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final BinaryWordEnumerator enumerator;
+		private final long from;
+		private final long to;
+
+		CountTask(BinaryWordEnumerator enumerator, long from, long to) {
+			this.enumerator = enumerator;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from <= threshold) {
+				return enumerator.countUnsolvable(matcher, from, to);
+			}
+			final long mid = from + (to - from) / 2;
+			final CountTask left = new CountTask(enumerator, from, mid);
+			left.fork();
+			final long right = new CountTask(enumerator, mid, to).compute();
+			return left.join() + right;
+		}
+
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
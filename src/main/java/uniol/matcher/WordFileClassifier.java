@@ -0,0 +1,384 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Classifies a file with one binary word per line. The file is memory mapped
+ * in chunks that end at line breaks, and every chunk is parsed straight from
+ * its buffer and classified on a {@link ForkJoinPool}. Words of up to
+ * {@link BinaryWord#MAX_PACKED_LENGTH} letters are classified without
+ * allocation. The matcher is shared between all worker threads and therefore
+ * has to be thread-safe.
+ *
+ * <p>
+ * Lines end with '\n' or "\r\n" and lines that start with '#' are skipped,
+ * like in the list of minimal unsolvable words. The result file starts with a
+ * header of the magic number, the number of words and the number of
+ * unsolvable words, followed by one bit per word in little endian
+ * <code>long</code>s, where bit i is set if word i is unsolvable.
+ * </p>
+ */
+public class WordFileClassifier {
+
+	/**
+	 * Default size of the chunks the input is split into.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+	private static final int MAGIC = 0x55424352;
+	private static final int HEADER_SIZE = 20;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final UnsolvableBinwordMatcher matcher;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	/**
+	 * Creates a classifier that runs on the common pool.
+	 */
+	public WordFileClassifier(UnsolvableBinwordMatcher matcher) {
+		this(matcher, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param matcher
+	 *                thread-safe matcher that classifies the words
+	 * @param pool
+	 *                pool that runs the chunk tasks
+	 * @param chunkSize
+	 *                number of bytes after which a chunk ends at the next
+	 *                line break
+	 */
+	public WordFileClassifier(UnsolvableBinwordMatcher matcher, ForkJoinPool pool, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		this.matcher = matcher;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Classifies all words of the input file and writes the result file.
+	 *
+	 * @return the number of words and of unsolvable words
+	 * @throws IOException
+	 *                 if a file cannot be read or written
+	 * @throws IllegalArgumentException
+	 *                 if a line contains a letter other than 'a' and 'b'
+	 */
+	public Result classify(Path input, Path output) throws IOException {
+		final List<ChunkTask> chunks = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			long start = 0;
+			while (start < size) {
+				final long end = lineEnd(channel, Math.min(size, start + chunkSize));
+				chunks.add(new ChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start),
+						start));
+				start = end;
+			}
+			for (ChunkTask chunk : chunks) {
+				pool.execute(chunk);
+			}
+			for (ChunkTask chunk : chunks) {
+				chunk.join();
+			}
+		}
+		return write(chunks, output);
+	}
+
+	/**
+	 * Reads the bits of a result file that was written by
+	 * {@link #classify(Path, Path)}.
+	 *
+	 * @return the set of the indices of the unsolvable words
+	 * @throws IOException
+	 *                 if the file cannot be read, is no result file or has
+	 *                 more words than a {@link BitSet} can index, in which
+	 *                 case {@link #readResultBits(Path)} reads it
+	 */
+	public static BitSet readResult(Path file) throws IOException {
+		final LongBuffer bits = readResultBits(file);
+		if (bits.limit() > (Integer.MAX_VALUE + 1L) / Long.SIZE) {
+			throw new IOException("Too many words for a BitSet: " + file);
+		}
+		return BitSet.valueOf(bits);
+	}
+
+	/**
+	 * Maps the bits of a result file that was written by
+	 * {@link #classify(Path, Path)} into memory. This works for files with
+	 * more than 2<sup>31</sup> words.
+	 *
+	 * @return the bits of the result file, bit i % 64 of element i / 64 is
+	 *         set if word i is unsolvable
+	 * @throws IOException
+	 *                 if the file cannot be read or is no result file
+	 */
+	public static LongBuffer readResultBits(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("Not a result file: " + file);
+			}
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0) {
+					throw new IOException("Not a result file: " + file);
+				}
+			}
+			if (header.getInt(0) != MAGIC) {
+				throw new IOException("Not a result file: " + file);
+			}
+			final long words = header.getLong(Integer.BYTES);
+			if (words < 0 || size != HEADER_SIZE + (words + Long.SIZE - 1) / Long.SIZE * Long.BYTES) {
+				throw new IOException("Truncated result file: " + file);
+			}
+			if (size - HEADER_SIZE > Integer.MAX_VALUE) {
+				throw new IOException("Result file too large to map: " + file);
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size - HEADER_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		}
+	}
+
+	/**
+	 * Returns the position after the line break at or after the given
+	 * position, or the size of the file.
+	 */
+	private static long lineEnd(FileChannel channel, long position) throws IOException {
+		final long size = channel.size();
+		if (position == 0 || position >= size) {
+			return position;
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		// the chunk ends after a break in the byte before the position
+		long offset = position - 1;
+		while (offset < size) {
+			buffer.clear();
+			final int read = channel.read(buffer, offset);
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return offset + i + 1;
+				}
+			}
+			offset += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Concatenates the bits of all chunks into the result file.
+	 */
+	private static Result write(List<ChunkTask> chunks, Path output) throws IOException {
+		long words = 0;
+		long unsolvable = 0;
+		for (ChunkTask chunk : chunks) {
+			words += chunk.words;
+			unsolvable += chunk.unsolvable;
+		}
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putLong(words).putLong(unsolvable);
+
+			// pending holds the lowest filled bits of the next long
+			long pending = 0;
+			int filled = 0;
+			for (ChunkTask chunk : chunks) {
+				for (int k = 0; k < BinaryWord.wordCount(chunk.words); k++) {
+					final int count = Math.min(Long.SIZE, chunk.words - k * Long.SIZE);
+					final long bits = chunk.bits[k];
+					pending |= bits << filled;
+					if (filled + count >= Long.SIZE) {
+						put(channel, buffer, pending);
+						pending = filled == 0 ? 0 : bits >>> (Long.SIZE - filled);
+						filled = filled + count - Long.SIZE;
+					} else {
+						filled += count;
+					}
+				}
+			}
+			if (filled > 0) {
+				put(channel, buffer, pending);
+			}
+			flush(channel, buffer);
+		}
+		return new Result(words, unsolvable);
+	}
+
+	private static void put(FileChannel channel, ByteBuffer buffer, long value) throws IOException {
+		if (buffer.remaining() < Long.BYTES) {
+			flush(channel, buffer);
+		}
+		buffer.putLong(value);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Number of words and of unsolvable words in a classified file.
+	 */
+	public static final class Result {
+
+		private final long wordCount;
+		private final long unsolvableCount;
+
+		Result(long wordCount, long unsolvableCount) {
+			this.wordCount = wordCount;
+			this.unsolvableCount = unsolvableCount;
+		}
+
+		public long getWordCount() {
+			return wordCount;
+		}
+
+		public long getUnsolvableCount() {
+			return unsolvableCount;
+		}
+
+		@Override
+		public String toString() {
+			return unsolvableCount + " of " + wordCount + " words unsolvable";
+		}
+
+	}
+
+	private class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient MappedByteBuffer buffer;
+		private final long offset;
+		// results, bit i is set if word i of the chunk is unsolvable
+		long[] bits = new long[0];
+		int words;
+		long unsolvable;
+
+		ChunkTask(MappedByteBuffer buffer, long offset) {
+			this.buffer = buffer;
+			this.offset = offset;
+		}
+
+		@Override
+		protected void compute() {
+			final ByteBuffer in = buffer;
+			final int limit = in.limit();
+			long[] letters = new long[1];
+			int pos = 0;
+			while (pos < limit) {
+				if (in.get(pos) == '#') {
+					while (pos < limit && in.get(pos++) != '\n') {
+					}
+					continue;
+				}
+				int length = 0;
+				long word = 0;
+				while (pos < limit) {
+					final byte c = in.get(pos++);
+					if (c == '\n') {
+						break;
+					}
+					if (c == '\r' && (pos == limit || in.get(pos) == '\n')) {
+						continue;
+					}
+					if (c != 'a' && c != 'b') {
+						throw new IllegalArgumentException(
+								"Not a binary letter at byte " + (offset + pos - 1));
+					}
+					if (length == Long.SIZE * letters.length) {
+						letters = Arrays.copyOf(letters, 2 * letters.length);
+					}
+					if (length < Long.SIZE) {
+						word |= (long) (c - 'a') << length;
+					} else {
+						letters[length >>> 6] |= (long) (c - 'a') << length;
+					}
+					length++;
+				}
+				final boolean isUnsolvable;
+				if (length <= Long.SIZE) {
+					isUnsolvable = matcher.isUnsolvableBinaryWord(word, length);
+				} else {
+					letters[0] = word;
+					isUnsolvable = matcher
+							.isUnsolvableBinaryWord(BinaryWord.valueOf(letters, length));
+					Arrays.fill(letters, 0);
+				}
+				add(isUnsolvable);
+			}
+		}
+
+		private void add(boolean isUnsolvable) {
+			if (words == Long.SIZE * bits.length) {
+				bits = Arrays.copyOf(bits, Math.max(16, 2 * bits.length));
+			}
+			if (isUnsolvable) {
+				bits[words >>> 6] |= 1L << words;
+				unsolvable++;
+			}
+			words++;
+		}
+
+	}
+
+	/**
+	 * Classifies a word file from the command line.
+	 *
+	 * @param args
+	 *                input file and result file
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: WordFileClassifier <word file> <result file>");
+			System.exit(1);
+		}
+		final long start = System.nanoTime();
+		final Result result = new WordFileClassifier(new PatternUBM()).classify(Paths.get(args[0]),
+				Paths.get(args[1]));
+		System.out.println(result + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
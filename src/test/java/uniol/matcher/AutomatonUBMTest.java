@@ -0,0 +1,100 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class AutomatonUBMTest {
+
+	@Test
+	public void testSmallWordList() {
+		AutomatonUBM matcher = new AutomatonUBM(Arrays.asList("abbaa", "baabb"));
+		assertThat(matcher.getMaxLength(), is(5));
+		assertThat(matcher.isUnsolvableBinaryWord("babbaab"), is(true));
+		assertThat(matcher.isUnsolvableBinaryWord("abbab"), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord(BinaryWord.valueOf("aabaabbb")), is(true));
+	}
+
+	@Test
+	public void testSuperwordBeforeFactor() {
+		AutomatonUBM matcher = new AutomatonUBM(Arrays.asList("abbaabbb", "abbaa"));
+		AutomatonUBM factorOnly = new AutomatonUBM(Arrays.asList("abbaa"));
+		assertThat(matcher.getStateCount(), is(factorOnly.getStateCount()));
+		// longer words go to the fallback
+		for (int length = 0; length <= matcher.getMaxLength(); length++) {
+			for (long bits = 0; bits < 1L << length; bits++) {
+				String word = BinaryWord.toString(bits, length);
+				assertThat(word, matcher.isUnsolvableBinaryWord(bits, length),
+						is(word.contains("abbaa")));
+			}
+		}
+	}
+
+	@Test
+	public void testAgreesWithPatternUBM() {
+		AutomatonUBM matcher = new AutomatonUBM(new BinaryWordList().getUnsolvableWords());
+		PatternUBM reference = new PatternUBM();
+		for (int length = 0; length <= 16; length++) {
+			for (long bits = 0; bits < 1L << length; bits++) {
+				String word = BinaryWord.toString(bits, length);
+				assertThat(word, matcher.isUnsolvableBinaryWord(bits, length),
+						is(reference.isUnsolvableBinaryWord(bits, length)));
+			}
+		}
+	}
+
+	@Test
+	public void testFallbackForLongWords() {
+		AutomatonUBM matcher = new AutomatonUBM(new BinaryWordList().getUnsolvableWords());
+		StringBuilder w = new StringBuilder();
+		for (int i = 0; i < matcher.getMaxLength(); i++) {
+			w.append('b');
+		}
+		// minimal unsolvable word longer than every listed word
+		String word = "ab" + w + "ba" + w;
+		assertThat(matcher.isUnsolvableBinaryWord(word), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord(word + "a"), is(true));
+		assertThat(matcher.isUnsolvableBinaryWord(BinaryWord.valueOf(word + "a")), is(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLetter() {
+		new AutomatonUBM(Arrays.asList("abcaa"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLetterInWord() {
+		// would be read as "abbaa"
+		new AutomatonUBM(Arrays.asList("abbaa")).isUnsolvableBinaryWord("abbxa");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLetterAfterMatch() {
+		new AutomatonUBM(Arrays.asList("abbaa")).isUnsolvableBinaryWord("abbaaA");
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,71 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import uniol.matcher.BinaryWordEnumerator.Order;
+
+public class BinaryWordEnumeratorTest {
+
+	@Test
+	public void testLexicographicOrder() {
+		List<String> words = new ArrayList<>();
+		new BinaryWordEnumerator(3).forEach((bits, length) -> words.add(BinaryWord.toString(bits, length)));
+		assertThat(words, contains("aaa", "aab", "aba", "abb", "baa", "bab", "bba", "bbb"));
+	}
+
+	@Test
+	public void testGrayOrder() {
+		BinaryWordEnumerator enumerator = new BinaryWordEnumerator(10, Order.GRAY);
+		long previous = enumerator.wordAt(0);
+		for (long i = 1; i < enumerator.size(); i++) {
+			long word = enumerator.wordAt(i);
+			assertThat(Long.bitCount(word ^ previous), is(1));
+			previous = word;
+		}
+	}
+
+	@Test
+	public void testParallelStreamCoversAllWords() {
+		BinaryWordEnumerator enumerator = new BinaryWordEnumerator(16, Order.GRAY);
+		assertThat(enumerator.stream(true).distinct().count(), is(1L << 16));
+		assertThat(enumerator.stream(true).sum(), is((1L << 16) * ((1L << 16) - 1) / 2));
+	}
+
+	@Test
+	public void testCountUnsolvable() {
+		UnsolvableBinwordMatcher matcher = new PatternUBM();
+		BinaryWordEnumerator enumerator = new BinaryWordEnumerator(12);
+		long expected = new BinaryWordList().getWordsOfLength(12).stream()
+				.filter(matcher::isUnsolvableBinaryWord).count();
+		assertThat(enumerator.countUnsolvable(matcher), is(expected));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
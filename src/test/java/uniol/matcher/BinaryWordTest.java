@@ -0,0 +1,59 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class BinaryWordTest {
+
+	@Test
+	public void testBitOrder() {
+		BinaryWord word = BinaryWord.valueOf("abba");
+		assertThat(word.length(), is(4));
+		assertThat(word.toLong(), is(0b0110L));
+		assertThat(word.charAt(0), is('a'));
+		assertThat(word.bitAt(1), is(1));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		String text = "abbbaabababbbbbbbbbbabaaaaaaaaaaaaaaaabbbbbbbbbbbbbbbbbbababababababbbbbbbbbabaab";
+		BinaryWord word = BinaryWord.valueOf(text);
+		assertThat(word.toString(), is(text));
+		assertThat(BinaryWord.valueOf(word.toLongArray(), word.length()), is(word));
+	}
+
+	@Test
+	public void testValueOfLongMasksUnusedBits() {
+		assertThat(BinaryWord.valueOf(-1L, 3), is(BinaryWord.valueOf("bbb")));
+		assertThat(BinaryWord.toString(0b10L, 3), is("aba"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLetter() {
+		BinaryWord.valueOf("abc");
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,97 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+public class CachingUBMTest {
+
+	@Test
+	public void testStatistics() {
+		CachingUBM matcher = new CachingUBM(new PatternUBM(), 16);
+		assertThat(matcher.isUnsolvableBinaryWord("abbaa"), is(true));
+		assertThat(matcher.isUnsolvableBinaryWord(BinaryWord.valueOf("abbaa")), is(true));
+		assertThat(matcher.isUnsolvableBinaryWord("abbab"), is(false));
+		assertThat(matcher.getHitCount(), is(1L));
+		assertThat(matcher.getMissCount(), is(2L));
+		assertThat(matcher.getHitRate(), is(1.0 / 3));
+
+		matcher.resetStatistics();
+		assertThat(matcher.isUnsolvableBinaryWord("abbab"), is(false));
+		assertThat(matcher.getHitCount(), is(1L));
+		assertThat(matcher.getMissCount(), is(0L));
+	}
+
+	@Test
+	public void testBoundedCapacity() {
+		AtomicInteger calls = new AtomicInteger();
+		CachingUBM matcher = new CachingUBM(new PatternUBM() {
+			@Override
+			public boolean isUnsolvableBinaryWord(long bits, int length) {
+				calls.incrementAndGet();
+				return super.isUnsolvableBinaryWord(bits, length);
+			}
+		}, 100);
+		assertThat(matcher.getCapacity(), is(128));
+		PatternUBM reference = new PatternUBM();
+		for (int round = 0; round < 2; round++) {
+			for (long bits = 0; bits < 1 << 12; bits++) {
+				assertThat(matcher.isUnsolvableBinaryWord(bits, 12),
+						is(reference.isUnsolvableBinaryWord(bits, 12)));
+			}
+		}
+		assertThat(matcher.getMissCount(), is((long) calls.get()));
+		assertThat(matcher.getMissCount() - matcher.getEvictionCount(), lessThanOrEqualTo(128L));
+	}
+
+	@Test
+	public void testConcurrentAccess() {
+		CachingUBM matcher = new CachingUBM(new PatternUBM(), 256);
+		PatternUBM reference = new PatternUBM();
+		long mismatches = LongStream.range(0, 1 << 18).parallel()
+				.filter(i -> matcher.isUnsolvableBinaryWord(i & 0x3fff, 14) != reference
+						.isUnsolvableBinaryWord(i & 0x3fff, 14))
+				.count();
+		assertThat(mismatches, is(0L));
+		assertThat(matcher.getHitCount() + matcher.getMissCount(), is(1L << 18));
+	}
+
+	@Test
+	public void testLongWordsAreNotCached() {
+		CachingUBM matcher = new CachingUBM(new PatternUBM());
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			word.append("ab");
+		}
+		assertThat(matcher.isUnsolvableBinaryWord(word.toString()), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord(word + "bbaa"), is(true));
+		assertThat(matcher.getHitCount() + matcher.getMissCount(), is(0L));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
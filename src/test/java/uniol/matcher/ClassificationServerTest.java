@@ -0,0 +1,143 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uniol.matcher.ClassificationLoadGenerator.Report;
+
+public class ClassificationServerTest {
+
+	private final PatternUBM matcher = new PatternUBM();
+	private ClassificationServer server;
+
+	@Before
+	public void startServer() throws IOException {
+		server = new ClassificationServer(matcher, 0);
+		server.start();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		server.close();
+	}
+
+	@Test
+	public void testPipelinedWords() throws IOException {
+		List<String> words = new BinaryWordList().getWordsOfLength(10);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+						StandardCharsets.ISO_8859_1));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(),
+						StandardCharsets.ISO_8859_1)) {
+			// all words before the first answer is read
+			for (String word : words) {
+				out.write(word + "\n");
+			}
+			out.write("abc\r\n\n");
+			out.flush();
+			for (String word : words) {
+				assertThat(word, in.readLine(), is(matcher.isUnsolvableBinaryWord(word) ? "1" : "0"));
+			}
+			assertThat(in.readLine(), is("!Not a binary word: 'abc'"));
+			assertThat(in.readLine(), is("0"));
+			socket.shutdownOutput();
+			assertThat(in.readLine(), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void testLoadGenerator() throws IOException {
+		ClassificationLoadGenerator generator = new ClassificationLoadGenerator("localhost", server.getPort());
+		Report report = generator.run(1, 5000, 12, 64);
+
+		// the words that the only connection sends
+		Random random = new Random(0);
+		long unsolvable = 0;
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int j = 0; j < 12; j++) {
+				word.append(random.nextBoolean() ? 'b' : 'a');
+			}
+			if (matcher.isUnsolvableBinaryWord(word.toString())) {
+				unsolvable++;
+			}
+		}
+		assertThat(report.getWordCount(), is(5000));
+		assertThat(report.getUnsolvableCount(), is(unsolvable));
+		assertThat(report.getLatency(0.5), lessThanOrEqualTo(report.getLatency(0.99)));
+	}
+
+	@Test(timeout = 10000)
+	public void testLoadGeneratorFailsOnUnexpectedAnswer() throws Exception {
+		try (ServerSocket fake = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			Thread answerer = new Thread(() -> {
+				// answers the first word with garbage and never reads again
+				try (Socket socket = fake.accept()) {
+					new BufferedReader(new InputStreamReader(socket.getInputStream(),
+							StandardCharsets.ISO_8859_1)).readLine();
+					socket.getOutputStream().write("x\n".getBytes(StandardCharsets.ISO_8859_1));
+					Thread.sleep(5000);
+				} catch (IOException | InterruptedException e) {
+					// the test is over
+				}
+			});
+			answerer.setDaemon(true);
+			answerer.start();
+			ClassificationLoadGenerator generator = new ClassificationLoadGenerator("localhost",
+					fake.getLocalPort());
+			try {
+				generator.run(1, 1000000, 100, 16);
+				fail("Unexpected answer was accepted");
+			} catch (IOException e) {
+				assertThat(e.getMessage(), is("Unexpected answer: x"));
+			}
+		}
+	}
+
+	@Test
+	public void testParallelConnections() throws IOException {
+		ClassificationLoadGenerator generator = new ClassificationLoadGenerator("localhost", server.getPort());
+		assertThat(generator.run(8, 2000, 30, 128).getWordCount(), is(16000));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,231 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import uniol.matcher.DifferentialFuzzer.Disagreement;
+import uniol.matcher.DifferentialFuzzer.Report;
+import uniol.matcher.DifferentialFuzzer.Source;
+
+public class DifferentialFuzzerTest {
+
+	private final List<String> seeds = new BinaryWordList().getUnsolvableWords();
+
+	@Test
+	public void testImplementationsAgree() {
+		Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", new PatternUBM());
+		matchers.put("LetterCountingUBM", new LetterCountingUBM());
+		matchers.put("RepetitionUBM", new RepetitionUBM());
+		matchers.put("AutomatonUBM", new AutomatonUBM(seeds));
+		matchers.put("LookupTableUBM", new LookupTableUBM(16));
+		matchers.put("HybridUBM", new HybridUBM());
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(matchers, seeds);
+		Set<String> columns = new LinkedHashSet<>();
+		for (String name : matchers.keySet()) {
+			columns.addAll(Arrays.asList(name + ".string", name + ".binaryWord", name + ".packed",
+					name + ".batch", name + ".stringBatch", name + ".factor",
+					name + ".binaryWordFactor"));
+		}
+		for (Source source : Source.values()) {
+			Report report = fuzzer.run(source, 20000, 120, 42);
+			assertThat(report.toString(), report.getDisagreementCount(), is(0));
+			assertThat(report.getWordCount(), is(20000));
+			assertThat(report.getThroughput().keySet(), is(columns));
+		}
+	}
+
+	@Test
+	public void testDisagreementIsShrunk() {
+		PatternUBM reference = new PatternUBM();
+		Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", reference);
+		// misses pattern II
+		matchers.put("PatternIOnly", word -> !word.isEmpty() && reference.step1(word.toCharArray()));
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(matchers, seeds);
+		Report report = fuzzer.run(Source.RANDOM, 5000, 60, 1);
+		assertThat(report.getDisagreementCount() > 0, is(true));
+		assertThat(report.getDisagreements().size(),
+				is(Math.min(report.getDisagreementCount(), DifferentialFuzzer.MAX_DISAGREEMENTS)));
+		for (Disagreement disagreement : report.getDisagreements()) {
+			String word = disagreement.getShrunkWord();
+			assertThat(word.length(), lessThanOrEqualTo(disagreement.getWord().length()));
+			assertThat(disagreement.getResults().get("PatternUBM.string"), is(true));
+			assertThat(disagreement.getResults().get("PatternIOnly.string"), is(false));
+			// the matchers agree once any letter is removed
+			for (int i = 0; i < word.length(); i++) {
+				String shorter = word.substring(0, i) + word.substring(i + 1);
+				assertThat(matchers.get("PatternIOnly").isUnsolvableBinaryWord(shorter),
+						is(reference.isUnsolvableBinaryWord(shorter)));
+			}
+		}
+		// the shrunk words of pattern II without w and k = 1
+		assertThat(fuzzer.shrink("aaaaaaaabbaaaaaabbbb"), is("abbaa"));
+	}
+
+	@Test
+	public void testExceptionIsDisagreement() {
+		Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", new PatternUBM());
+		matchers.put("Failing", word -> {
+			if (word.contains("bbb")) {
+				throw new IllegalStateException();
+			}
+			return new PatternUBM().isUnsolvableBinaryWord(word);
+		});
+		Report report = new DifferentialFuzzer(matchers, seeds).run(Source.EXHAUSTIVE, 1000, 0, 0);
+		assertThat(report.getDisagreementCount() > 0, is(true));
+		Disagreement first = report.getDisagreements().get(0);
+		assertThat(first.getWord(), is("bbb"));
+		assertThat(first.getShrunkWord(), is("bbb"));
+		assertThat(first.getResults().get("Failing.string"), is(nullValue()));
+	}
+
+	@Test
+	public void testEntryPointMismatchIsDisagreement() {
+		PatternUBM reference = new PatternUBM();
+		Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", reference);
+		// agrees through the string entry point, but misses pattern II in
+		// the batch
+		matchers.put("BrokenBatch", new UnsolvableBinwordMatcher() {
+			@Override
+			public boolean isUnsolvableBinaryWord(String word) {
+				return reference.isUnsolvableBinaryWord(word);
+			}
+
+			@Override
+			public void classify(long[] words, int length, long[] result) {
+				BinaryWord.checkBatch(words, length, result);
+				for (int i = 0; i < words.length; i++) {
+					String word = BinaryWord.valueOf(words[i], length).toString();
+					if (!word.isEmpty() && reference.step1(word.toCharArray())) {
+						result[i >>> 6] |= 1L << i;
+					}
+				}
+			}
+		});
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(matchers, seeds);
+		Report report = fuzzer.run(Source.EXHAUSTIVE, 1000, 0, 0);
+		assertThat(report.getDisagreementCount() > 0, is(true));
+		Disagreement first = report.getDisagreements().get(0);
+		assertThat(first.getWord(), is("abbaa"));
+		assertThat(first.getShrunkWord(), is("abbaa"));
+		assertThat(first.getResults().get("BrokenBatch.string"), is(true));
+		assertThat(first.getResults().get("BrokenBatch.packed"), is(true));
+		assertThat(first.getResults().get("BrokenBatch.batch"), is(false));
+
+		// longer words do not go through the packed entry points, so the
+		// broken batch cannot disagree on them
+		for (Disagreement disagreement : fuzzer.run(Source.RANDOM, 5000, 120, 3).getDisagreements()) {
+			assertThat(disagreement.getWord().length(), lessThanOrEqualTo(BinaryWord.MAX_PACKED_LENGTH));
+			assertThat(disagreement.getResults().get("BrokenBatch.batch"), is(false));
+		}
+	}
+
+	@Test
+	public void testInvalidFactorIsDisagreement() {
+		PatternUBM reference = new PatternUBM();
+		Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", reference);
+		// classifies correctly, but reports the factor one letter too short
+		matchers.put("ShortFactor", new UnsolvableBinwordMatcher() {
+			@Override
+			public boolean isUnsolvableBinaryWord(String word) {
+				return reference.isUnsolvableBinaryWord(word);
+			}
+
+			@Override
+			public UnsolvableFactor findUnsolvableFactor(String word) {
+				UnsolvableFactor factor = reference.findUnsolvableFactor(word);
+				return factor == null ? null : UnsolvableFactor.patternII(0, factor.getStart(), 0, 0);
+			}
+		});
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(matchers, seeds);
+		Report report = fuzzer.run(Source.EXHAUSTIVE, 1000, 0, 0);
+		assertThat(report.getDisagreementCount() > 0, is(true));
+		Disagreement first = report.getDisagreements().get(0);
+		assertThat(first.getShrunkWord(), is("abbaa"));
+		assertThat(first.getResults().get("ShortFactor.string"), is(true));
+		assertThat(first.getResults().get("ShortFactor.factor"), is(nullValue()));
+		// the packed variant is the default, which finds the right factor
+		assertThat(first.getResults().get("ShortFactor.binaryWordFactor"), is(true));
+		assertThat(first.getResults().get("PatternUBM.factor"), is(true));
+	}
+
+	@Test
+	public void testStringBatchMismatchIsDisagreement() {
+		PatternUBM reference = new PatternUBM();
+		Map<String, UnsolvableBinwordMatcher> matchers = new LinkedHashMap<>();
+		matchers.put("PatternUBM", reference);
+		// misses pattern II in classify(String[]) only
+		matchers.put("BrokenStringBatch", new UnsolvableBinwordMatcher() {
+			@Override
+			public boolean isUnsolvableBinaryWord(String word) {
+				return reference.isUnsolvableBinaryWord(word);
+			}
+
+			@Override
+			public BitSet classify(String[] words) {
+				BitSet result = new BitSet(words.length);
+				for (int i = 0; i < words.length; i++) {
+					if (!words[i].isEmpty() && reference.step1(words[i].toCharArray())) {
+						result.set(i);
+					}
+				}
+				return result;
+			}
+		});
+		Report report = new DifferentialFuzzer(matchers, seeds).run(Source.EXHAUSTIVE, 1000, 0, 0);
+		assertThat(report.getDisagreementCount() > 0, is(true));
+		Disagreement first = report.getDisagreements().get(0);
+		assertThat(first.getShrunkWord(), is("abbaa"));
+		assertThat(first.getResults().get("BrokenStringBatch.string"), is(true));
+		assertThat(first.getResults().get("BrokenStringBatch.stringBatch"), is(false));
+	}
+
+	@Test
+	public void testExhaustiveOrder() {
+		assertThat(DifferentialFuzzer.exhaustiveWord(0), is(""));
+		assertThat(DifferentialFuzzer.exhaustiveWord(1), is("a"));
+		assertThat(DifferentialFuzzer.exhaustiveWord(2), is("b"));
+		assertThat(DifferentialFuzzer.exhaustiveWord(3), is("aa"));
+		assertThat(DifferentialFuzzer.exhaustiveWord(4), is("ba"));
+		assertThat(DifferentialFuzzer.exhaustiveWord(6), is("bb"));
+		assertThat(DifferentialFuzzer.exhaustiveWord(7), is("aaa"));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
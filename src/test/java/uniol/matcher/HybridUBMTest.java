@@ -0,0 +1,91 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HybridUBMTest {
+
+	private final HybridUBM matcher = new HybridUBM();
+
+	@Test
+	public void testCountSites() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int j = random.nextInt(300); j > 0; j--) {
+				word.append(random.nextBoolean() ? 'a' : 'b');
+			}
+			int expected = 0;
+			for (int j = 0; j + 1 < word.length(); j++) {
+				if (word.charAt(j) != word.charAt(j + 1)) {
+					expected++;
+				}
+			}
+			BinaryWord binaryWord = BinaryWord.valueOf(word.toString());
+			assertThat(word.toString(), HybridUBM.countSites(binaryWord.bits, binaryWord.length),
+					is(expected));
+		}
+	}
+
+	@Test
+	public void testShortWordsAreSolvable() {
+		for (int length = 0; length < HybridUBM.MIN_UNSOLVABLE_LENGTH; length++) {
+			for (String word : new BinaryWordList().getWordsOfLength(length)) {
+				assertThat(matcher.isUnsolvableBinaryWord(word), is(false));
+			}
+		}
+	}
+
+	@Test
+	public void testAgreesWithPatternUBM() {
+		// long words with few and with many sites take different paths
+		PatternUBM reference = new PatternUBM();
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			double change = i % 2 == 0 ? 0.02 : 0.5;
+			StringBuilder word = new StringBuilder();
+			char letter = 'a';
+			for (int j = 65 + random.nextInt(1000); j > 0; j--) {
+				if (random.nextDouble() < change) {
+					letter = letter == 'a' ? 'b' : 'a';
+				}
+				word.append(letter);
+			}
+			assertThat(word.toString(), matcher.isUnsolvableBinaryWord(word.toString()),
+					is(reference.isUnsolvableBinaryWord(word.toString())));
+		}
+		for (WorstCaseWords.Family family : WorstCaseWords.Family.values()) {
+			String word = WorstCaseWords.generate(family, 1000);
+			assertThat(family.toString(), matcher.isUnsolvableBinaryWord(word),
+					is(reference.isUnsolvableBinaryWord(word)));
+			assertThat(family.toString(), matcher.isUnsolvableBinaryWord(word + "a"),
+					is(reference.isUnsolvableBinaryWord(word + "a")));
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,128 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IncrementalUnsolvableMatcherTest {
+
+	private final IncrementalUnsolvableMatcher matcher = new IncrementalUnsolvableMatcher();
+
+	@Test
+	public void testMinimalWords() {
+		for (String word : new BinaryWordList().getUnsolvableWords()) {
+			matcher.reset();
+			String prefix = word.substring(0, word.length() - 1);
+			assertFalse("The prefix '" + prefix + "' was incorrectly classified as unsolvable.",
+					matcher.append(prefix));
+			assertTrue("The word '" + word + "' was incorrectly classified as solvable.",
+					matcher.append(word.charAt(word.length() - 1)));
+			assertEquals(0, matcher.getFactorStart());
+			assertEquals(word.length() - 1, matcher.getFactorEnd());
+		}
+	}
+
+	@Test
+	public void testAllPrefixesAgreeWithPatternUBM() {
+		PatternUBM reference = new PatternUBM();
+		for (String word : new BinaryWordList().getWordsOfLength(14)) {
+			matcher.reset();
+			for (int i = 0; i < word.length(); i++) {
+				assertEquals("Classification of '" + word.substring(0, i + 1) + "' differs.",
+						reference.isUnsolvableBinaryWord(word.substring(0, i + 1)),
+						matcher.append(word.charAt(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testFactorIsReported() {
+		assertTrue(matcher.append("aaaaabbaaaa"));
+		assertEquals(4, matcher.getFactorStart());
+		assertEquals(8, matcher.getFactorEnd());
+		assertEquals(11, matcher.length());
+	}
+
+	@Test
+	public void testRollback() {
+		PatternUBM reference = new PatternUBM();
+		String prefix = "abaababaab";
+		assertFalse(matcher.append(prefix));
+		int checkpoint = matcher.checkpoint();
+		for (String suffix : new BinaryWordList().getWordsOfLength(8)) {
+			assertEquals("Classification of '" + prefix + suffix + "' differs.",
+					reference.isUnsolvableBinaryWord(prefix + suffix), matcher.append(suffix));
+			assertEquals(prefix + suffix, matcher.toBinaryWord().toString());
+			matcher.rollback(checkpoint);
+			assertFalse(matcher.isUnsolvable());
+			assertEquals(prefix, matcher.toBinaryWord().toString());
+		}
+	}
+
+	@Test
+	public void testNestedRollback() {
+		// every word up to 12 letters as a depth-first walk that rolls
+		// back one letter at a time, against appending the word anew
+		PatternUBM reference = new PatternUBM();
+		IncrementalUnsolvableMatcher fresh = new IncrementalUnsolvableMatcher();
+		matcher.checkpoint();
+		for (String word : new BinaryWordList().getWordsOfLength(12)) {
+			int common = 0;
+			String current = matcher.toBinaryWord().toString();
+			while (common < current.length() && current.charAt(common) == word.charAt(common)) {
+				common++;
+			}
+			matcher.rollback(common);
+			for (int i = common; i < word.length(); i++) {
+				String prefix = word.substring(0, i + 1);
+				matcher.append(word.charAt(i));
+				fresh.reset();
+				fresh.append(prefix);
+				assertEquals(prefix, reference.isUnsolvableBinaryWord(prefix), matcher.isUnsolvable());
+				assertEquals(fresh.getFactorStart(), matcher.getFactorStart());
+				assertEquals(fresh.getFactorEnd(), matcher.getFactorEnd());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRollbackBeforeCheckpoint() {
+		matcher.append("abab");
+		matcher.checkpoint();
+		matcher.rollback(2);
+	}
+
+	@Test
+	public void testLongSolvableWord() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("ab");
+		}
+		assertFalse(matcher.append(sb));
+		assertEquals(sb.toString(), matcher.toBinaryWord().toString());
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
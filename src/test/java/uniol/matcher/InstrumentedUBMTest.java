@@ -0,0 +1,90 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class InstrumentedUBMTest {
+
+	private final PatternUBM matcher = new PatternUBM();
+
+	@Test
+	public void testCountsWords() {
+		InstrumentedUBM instrumented = new InstrumentedUBM(matcher, "InstrumentedUBMTest.counts");
+		Metrics.Snapshot before = Metrics.snapshot();
+		List<String> words = new BinaryWordList().getWordsOfLength(10);
+		long unsolvable = 0;
+		for (String word : words) {
+			boolean result = instrumented.isUnsolvableBinaryWord(word);
+			assertThat(result, is(matcher.isUnsolvableBinaryWord(word)));
+			if (result) {
+				unsolvable++;
+			}
+		}
+		assertThat(instrumented.classify(words.toArray(new String[0])).cardinality(), is((int) unsolvable));
+		// bbabb, aaaaa and the unsolvable baabb, the unused bits of the
+		// result are not counted
+		long[] packed = { 0b11011, 0b00000, 0b11001 };
+		long[] result = { -1L << 3 };
+		instrumented.classify(packed, 5, result);
+
+		Metrics.Snapshot after = Metrics.snapshot();
+		assertThat(after.getCounter("InstrumentedUBMTest.counts.words")
+				- before.getCounter("InstrumentedUBMTest.counts.words"), is(2L * words.size() + 3));
+		assertThat(after.getCounter("InstrumentedUBMTest.counts.unsolvable")
+				- before.getCounter("InstrumentedUBMTest.counts.unsolvable"), is(2 * unsolvable + 1));
+		LatencyHistogram.Snapshot length = after.getHistograms().get("InstrumentedUBMTest.counts.length");
+		assertThat(length.getCount(), is(2L * words.size() + 3));
+		assertThat(length.getValueAtQuantile(0), is(5L));
+		assertThat(length.getMax(), is(10L));
+		assertThat(after.getHistograms().get("InstrumentedUBMTest.counts.latency").getCount(),
+				is(words.size() + 2L));
+		assertThat(after.toString().contains("InstrumentedUBMTest.counts.words " + (2 * words.size() + 3)),
+				is(true));
+	}
+
+	@Test
+	public void testFindUnsolvableFactor() {
+		InstrumentedUBM instrumented = new InstrumentedUBM(matcher, "InstrumentedUBMTest.factor");
+		assertThat(instrumented.findUnsolvableFactor("aabbaa").toString(),
+				is(matcher.findUnsolvableFactor("aabbaa").toString()));
+		assertThat(instrumented.findUnsolvableFactor(BinaryWord.valueOf("abab")), is((UnsolvableFactor) null));
+		assertThat(Metrics.snapshot().getCounter("InstrumentedUBMTest.factor.unsolvable") >= 1, is(true));
+	}
+
+	@Test
+	public void testInstrumentOnlyIfEnabled() {
+		UnsolvableBinwordMatcher result = Metrics.instrument(matcher);
+		if (Metrics.ENABLED) {
+			assertThat(result instanceof InstrumentedUBM, is(true));
+		} else {
+			assertThat(result, is(sameInstance((UnsolvableBinwordMatcher) matcher)));
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,75 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		int previous = -1;
+		for (long value = 0; value < 1 << 16; value++) {
+			int bucket = LatencyHistogram.bucket(value);
+			assertThat(bucket >= previous && bucket <= previous + 1, is(true));
+			assertThat(value <= LatencyHistogram.highestValue(bucket), is(true));
+			// the relative error is at most 1/8
+			assertThat(LatencyHistogram.highestValue(bucket) - value, lessThanOrEqualTo(value / 8));
+			previous = bucket;
+		}
+		assertThat(LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testQuantiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+		histogram.record(1000000, 10);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getCount(), is(1010L));
+		assertThat(snapshot.getMax(), is(1000000L));
+		assertThat(snapshot.getMean(), is((500500 + 10000000) / 1010.0));
+		assertThat(snapshot.getValueAtQuantile(0), is(1L));
+		assertThat(snapshot.getValueAtQuantile(0.01), is(11L));
+		long median = snapshot.getValueAtQuantile(0.5);
+		assertThat(505 <= median && median <= 505 + 505 / 8, is(true));
+		assertThat(snapshot.getValueAtQuantile(0.995), is(1000000L));
+		assertThat(snapshot.getValueAtQuantile(1), is(1000000L));
+	}
+
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		assertThat(histogram.snapshot().getValueAtQuantile(1), is(0L));
+		histogram.reset();
+		assertThat(histogram.snapshot().getCount(), is(0L));
+		assertThat(histogram.snapshot().getValueAtQuantile(0.5), is(0L));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
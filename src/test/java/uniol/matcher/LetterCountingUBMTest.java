@@ -0,0 +1,253 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uniol.matcher.LetterCountingUBM.Interval;
+import uniol.matcher.LetterCountingUBM.SeparationFailure;
+
+public class LetterCountingUBMTest {
+
+	private LetterCountingUBM matcher = new LetterCountingUBM();
+
+	@Test
+	public void testSeparationFailure() {
+		SeparationFailure failure = matcher.findSeparationFailure("abbaa");
+		assertThat(failure.getSeparationPoint(), is(2));
+		assertThat(failure.getInterval().leftQuot(), lessThanOrEqualTo(failure.getInterval().rightQuot()));
+		assertThat(matcher.findSeparationFailure("abbab"), is(nullValue()));
+		assertThat(matcher.findSeparationFailure(""), is(nullValue()));
+	}
+
+	@Test
+	public void testSeparationFailureMatchesClassification() {
+		for (int length = 0; length <= 12; length++) {
+			for (String word : new BinaryWordList().getWordsOfLength(length)) {
+				SeparationFailure failure = matcher.findSeparationFailure(word);
+				assertThat(word, failure != null, is(matcher.isUnsolvableBinaryWord(word)));
+				if (failure != null) {
+					assertThat(failure.getInterval().isInfinite(), is(false));
+					assertThat(failure.getInterval().isUnlimited(), is(false));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHullMatchesScan() {
+		for (int length = 1; length <= 14; length++) {
+			for (long bits = 0; bits < 1L << length; bits++) {
+				assertHullMatchesScan(BinaryWord.valueOf(bits, length));
+			}
+		}
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			double p = random.nextDouble();
+			StringBuilder word = new StringBuilder();
+			for (int j = 1 + random.nextInt(1000); j > 0; j--) {
+				word.append(random.nextDouble() < p ? 'b' : 'a');
+			}
+			assertHullMatchesScan(BinaryWord.valueOf(word.toString()));
+		}
+	}
+
+	@Test
+	public void testLongWords() {
+		StringBuilder alternating = new StringBuilder();
+		StringBuilder blocks = new StringBuilder();
+		for (int i = 0; i < 50000; i++) {
+			alternating.append("ab");
+		}
+		for (int i = 0; i < 50000; i++) {
+			blocks.append('a');
+		}
+		for (int i = 0; i < 50000; i++) {
+			blocks.append('b');
+		}
+		assertThat(matcher.isUnsolvableBinaryWord(alternating.toString()), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord(blocks.toString()), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord(alternating + "bbaa"), is(true));
+	}
+
+	@Test
+	public void testSeparationFailureMatchesReference() {
+		for (int length = 1; length <= 12; length++) {
+			for (String word : new BinaryWordList().getWordsOfLength(length)) {
+				assertMatchesReference(word);
+			}
+		}
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			double p = random.nextDouble();
+			StringBuilder word = new StringBuilder();
+			for (int j = 1 + random.nextInt(300); j > 0; j--) {
+				word.append(random.nextDouble() < p ? 'b' : 'a');
+			}
+			assertMatchesReference(word.toString());
+		}
+	}
+
+	@Test
+	public void testBoundsCloserThanFloat() {
+		// a factor of the mechanical word with slope 515558/1000003, the
+		// bounds of separation point 9803 are different fractions that
+		// round to the same float
+		StringBuilder word = new StringBuilder();
+		for (long i = 5013; i <= 19830; i++) {
+			word.append((i + 1) * 515558 / 1000003 - i * 515558 / 1000003 == 1 ? 'b' : 'a');
+		}
+		long[] bounds = referenceBounds(word.toString(), 9803);
+		assertThat(bounds, is(new long[] { 5054, 4749, 2585, 2429 }));
+		assertThat((float) bounds[0] / bounds[1], is((float) bounds[2] / bounds[3]));
+		assertMatchesReference(word.toString());
+		assertThat(matcher.findSeparationFailure(word.toString()), is(nullValue()));
+	}
+
+	@Test
+	public void testBoundsBeyondIntProducts() {
+		// the lower boundary of separation point 2 is compared with
+		// products of up to 50000 * 50001
+		StringBuilder word = new StringBuilder("ba");
+		for (int i = 0; i < 50000; i++) {
+			word.append('a');
+		}
+		for (int i = 0; i < 50001; i++) {
+			word.append('b');
+		}
+		word.append('a');
+		long[] bounds = new long[4];
+		assertThat(referenceSeparationPoint(word.toString(), bounds), is(2));
+		assertThat(bounds, is(new long[] { 1, 1, 50000, 50000 }));
+		assertMatchesReference(word.toString());
+	}
+
+	/**
+	 * Checks the separation point and bounds found by the scan, the hull and
+	 * {@link LetterCountingUBM#findSeparationFailure(String)} against
+	 * {@link #referenceSeparationPoint(String, long[])}.
+	 */
+	private void assertMatchesReference(String word) {
+		long[] expected = new long[4];
+		int seppt = referenceSeparationPoint(word, expected);
+		BinaryWord binaryWord = BinaryWord.valueOf(word);
+		int[] scanBounds = new int[4];
+		int[] hullBounds = new int[4];
+		assertThat(word, LetterCountingUBM.failingSeparationPointScan(binaryWord.bits, binaryWord.length,
+				scanBounds), is(seppt));
+		assertThat(word, LetterCountingUBM.failingSeparationPointHull(binaryWord.bits, binaryWord.length,
+				hullBounds), is(seppt));
+		SeparationFailure failure = matcher.findSeparationFailure(word);
+		if (seppt < 0) {
+			assertThat(word, failure, is(nullValue()));
+			return;
+		}
+		assertThat(word, failure.getSeparationPoint(), is(seppt));
+		Interval interval = failure.getInterval();
+		int[] failureBounds = { interval.getMinNum(), interval.getMinDen(), interval.getMaxNum(),
+				interval.getMaxDen() };
+		for (int[] bounds : new int[][] { scanBounds, hullBounds, failureBounds }) {
+			assertThat(word, (long) bounds[0] * expected[1], is(expected[0] * bounds[1]));
+			assertThat(word, (long) bounds[2] * expected[3], is(expected[2] * bounds[3]));
+		}
+	}
+
+	/**
+	 * Finds the first failing separation point by the definition, counting
+	 * the letters of every infix separately.
+	 */
+	private static int referenceSeparationPoint(String word, long[] bounds) {
+		for (int seppt = 1; seppt < word.length() - 1; seppt++) {
+			long[] b = referenceBounds(word, seppt);
+			if (b != null && b[0] * b[3] <= b[2] * b[1]) {
+				System.arraycopy(b, 0, bounds, 0, 4);
+				return seppt;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns minimum numerator and denominator and maximum numerator and
+	 * denominator of a separation point, or null if its interval is
+	 * infinite or unlimited.
+	 */
+	private static long[] referenceBounds(String word, int seppt) {
+		final char sepLetter = word.charAt(seppt);
+		long minNum = 0;
+		long minDen = 0;
+		long sep = 0;
+		long other = 0;
+		for (int prefix = seppt - 1; prefix >= 0; prefix--) {
+			if (word.charAt(prefix) == sepLetter) {
+				sep++;
+			} else {
+				other++;
+				if (minDen == 0 || other * minDen < minNum * sep) {
+					minNum = other;
+					minDen = sep;
+				}
+			}
+		}
+		long maxNum = 0;
+		long maxDen = 0;
+		sep = 0;
+		other = 0;
+		for (int postfix = seppt; postfix < word.length() - 1; postfix++) {
+			if (word.charAt(postfix) == sepLetter) {
+				sep++;
+			} else {
+				other++;
+			}
+			if (word.charAt(postfix + 1) != sepLetter && (maxDen == 0 || other * maxDen > maxNum * sep)) {
+				maxNum = other;
+				maxDen = sep;
+			}
+		}
+		if (minDen == 0 || maxDen == 0) {
+			return null;
+		}
+		return new long[] { minNum, minDen, maxNum, maxDen };
+	}
+
+	private static void assertHullMatchesScan(BinaryWord word) {
+		int[] scanBounds = new int[4];
+		int[] hullBounds = new int[4];
+		int scan = LetterCountingUBM.failingSeparationPointScan(word.bits, word.length, scanBounds);
+		int hull = LetterCountingUBM.failingSeparationPointHull(word.bits, word.length, hullBounds);
+		assertThat(word.toString(), hull, is(scan));
+		if (scan >= 0) {
+			assertThat(word.toString(), (long) hullBounds[0] * scanBounds[1],
+					is((long) scanBounds[0] * hullBounds[1]));
+			assertThat(word.toString(), (long) hullBounds[2] * scanBounds[3],
+					is((long) scanBounds[2] * hullBounds[3]));
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
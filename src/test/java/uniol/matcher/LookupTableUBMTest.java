@@ -0,0 +1,100 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LookupTableUBMTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAgreesWithPatternUBM() {
+		LookupTableUBM matcher = new LookupTableUBM(18);
+		PatternUBM reference = new PatternUBM();
+		for (int length = 0; length <= 18; length++) {
+			for (long bits = 0; bits < 1L << length; bits++) {
+				String word = BinaryWord.toString(bits, length);
+				assertThat(word, matcher.isUnsolvableBinaryWord(bits, length),
+						is(reference.isUnsolvableBinaryWord(bits, length)));
+			}
+		}
+	}
+
+	@Test
+	public void testFallbackForLongWords() {
+		LookupTableUBM matcher = new LookupTableUBM(8);
+		assertThat(matcher.isUnsolvableBinaryWord("bbabbbbab"), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord("bbabbbbaba"), is(true));
+		assertThat(matcher.isUnsolvableBinaryWord(BinaryWord.valueOf("bbabbbbaba")), is(true));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		LookupTableUBM matcher = new LookupTableUBM(14);
+		Path file = folder.newFile().toPath();
+		matcher.save(file);
+		LookupTableUBM loaded = LookupTableUBM.load(file);
+		assertThat(loaded.getMaxLength(), is(14));
+		for (int length = 0; length <= 14; length++) {
+			for (long bits = 0; bits < 1L << length; bits++) {
+				assertThat(loaded.isUnsolvableBinaryWord(bits, length),
+						is(matcher.isUnsolvableBinaryWord(bits, length)));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidLetter() {
+		LookupTableUBM matcher = new LookupTableUBM(8);
+		for (String word : new String[] { "abbxa", "abbaA", "aaaaaaaaaaxbbaa" }) {
+			try {
+				matcher.isUnsolvableBinaryWord(word);
+				fail("No exception for '" + word + "'");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadTruncatedFile() throws IOException {
+		Path file = folder.newFile().toPath();
+		new LookupTableUBM(10).save(file);
+		byte[] content = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(content, content.length - 8));
+		LookupTableUBM.load(file);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,60 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class MinimalUnsolvableWordGeneratorTest {
+
+	private static final int MAX_LENGTH = 40;
+
+	@Test
+	public void testReproducesWordList() {
+		List<String> expected = new BinaryWordList().getUnsolvableWords().stream()
+				.filter(word -> word.length() <= MAX_LENGTH).collect(Collectors.toList());
+		List<String> generated = new MinimalUnsolvableWordGenerator(MAX_LENGTH).generate().stream()
+				.map(BinaryWord::toString).collect(Collectors.toList());
+		assertThat(generated, is(expected));
+	}
+
+	@Test
+	public void testWriteFormat() throws IOException {
+		StringWriter out = new StringWriter();
+		new MinimalUnsolvableWordGenerator(6).write(out);
+		assertThat(out.toString(), is("#-------------------- 2 --------------------\n"
+				+ "#-------------------- 3 --------------------\n"
+				+ "#-------------------- 4 --------------------\n"
+				+ "#-------------------- 5 --------------------\n"
+				+ "abbaa\nbaabb\n"
+				+ "#-------------------- 6 --------------------\n"
+				+ "abbbaa\nbaaabb\n"));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,125 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uniol.matcher.MultiLabelUnsolvabilityChecker.UnsolvablePair;
+
+public class MultiLabelUnsolvabilityCheckerTest {
+
+	private final MultiLabelUnsolvabilityChecker checker = new MultiLabelUnsolvabilityChecker();
+
+	@Test
+	public void testProjection() {
+		// the projection onto t1 and t3 is abbaa
+		List<String> sequence = Arrays.asList("t1", "t2", "t3", "t2", "t3", "t1", "t2", "t1");
+		UnsolvablePair<String> pair = checker.check(sequence);
+		assertThat(pair.getFirst(), is("t1"));
+		assertThat(pair.getSecond(), is("t3"));
+		assertThat(pair.getStart(), is(0));
+		assertThat(pair.getEnd(), is(8));
+		assertThat(pair.getFactor(), is("abbaa"));
+		assertThat(checker.check(sequence.subList(0, 7)), is(nullValue()));
+	}
+
+	@Test
+	public void testSingleLabel() {
+		assertThat(checker.check(Arrays.asList(1, 1, 1, 1, 1, 1)), is(nullValue()));
+		assertThat(checker.check(new ArrayList<Integer>()), is(nullValue()));
+	}
+
+	@Test
+	public void testAgreesWithProjections() {
+		Random random = new Random(42);
+		PatternUBM matcher = new PatternUBM();
+		for (int i = 0; i < 2000; i++) {
+			int labels = 2 + random.nextInt(6);
+			List<Integer> sequence = new ArrayList<>();
+			for (int j = random.nextInt(40); j > 0; j--) {
+				sequence.add(random.nextInt(labels));
+			}
+
+			// the first prefix with an unsolvable projection
+			int expectedEnd = -1;
+			for (int end = 1; end <= sequence.size() && expectedEnd < 0; end++) {
+				for (int a = 0; a < labels && expectedEnd < 0; a++) {
+					for (int b = a + 1; b < labels; b++) {
+						String projection = project(sequence.subList(0, end), a, b);
+						if (matcher.isUnsolvableBinaryWord(projection)) {
+							expectedEnd = end;
+							break;
+						}
+					}
+				}
+			}
+
+			UnsolvablePair<Integer> pair = checker.check(sequence);
+			if (expectedEnd < 0) {
+				assertThat(sequence.toString(), pair, is(nullValue()));
+			} else {
+				assertThat(sequence.toString(), pair, is(notNullValue()));
+				assertThat(sequence.toString(), pair.getEnd(), is(expectedEnd));
+				String factor = project(sequence.subList(pair.getStart(), pair.getEnd()),
+						pair.getFirst(), pair.getSecond());
+				assertThat(sequence.toString(), factor, is(pair.getFactor()));
+				assertThat(sequence.toString(), matcher.isUnsolvableBinaryWord(factor), is(true));
+			}
+		}
+	}
+
+	@Test
+	public void testManyLabels() {
+		// 50 labels in a round robin order project to (ab)^n, which is
+		// solvable
+		List<Integer> sequence = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			sequence.add(i % 50);
+		}
+		assertThat(checker.check(sequence), is(nullValue()));
+		sequence.addAll(Arrays.asList(1, 1, 0, 0));
+		assertThat(checker.check(sequence), is(notNullValue()));
+	}
+
+	private static String project(List<Integer> sequence, int a, int b) {
+		StringBuilder word = new StringBuilder();
+		for (int label : sequence) {
+			if (label == a) {
+				word.append('a');
+			} else if (label == b) {
+				word.append('b');
+			}
+		}
+		return word.toString();
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
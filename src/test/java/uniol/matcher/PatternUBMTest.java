@@ -23,6 +23,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.arrayContaining;
 import static org.hamcrest.Matchers.is;
 
+import java.util.BitSet;
+import java.util.Random;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -90,6 +92,75 @@ public class PatternUBMTest {
 		assertThat(matcher.containsPatternII(word.toCharArray(), 'a', 'b'), is(false));
 	}
 
+	@Test
+	public void testPatternIIDoesNotModifyInput() {
+		char[] word = "aaaaaaaabbabbababbababa".toCharArray();
+		char[] copy = word.clone();
+		assertThat(matcher.containsPatternII(word, 'a', 'b'), is(true));
+		assertThat(matcher.containsPatternII(word, 'b', 'a'), is(false));
+		assertThat(word, is(copy));
+	}
+
+	@Test
+	public void testBatchAgreesOnInvalidLetters() {
+		// packing would read the 'x' as 'a' and find "abbaa"
+		String[] words = { "abbxa", "abbaA", "abbaa" };
+		BitSet batch = matcher.classify(words);
+		for (int i = 0; i < words.length; i++) {
+			assertThat(words[i], batch.get(i), is(matcher.isUnsolvableBinaryWord(words[i])));
+		}
+		assertThat(batch.get(0), is(false));
+		assertThat(batch.get(2), is(true));
+	}
+
+	@Test
+	public void testPackedPatternIa() {
+		assertThat(matcher.containsPatternI(~BinaryWord.valueOf("abbbbaba").toLong() & 0xFF), is(true));
+		assertThat(matcher.containsPatternI(~BinaryWord.valueOf("abbbaba").toLong() & 0x7F), is(false));
+	}
+
+	@Test
+	public void testPackedPatternIIa() {
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abbabbababbababa").toLong(), 16), is(true));
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abaaa").toLong(), 5), is(false));
+	}
+
+	@Test
+	public void testPackedLongWord() {
+		// 70 letters do not fit into a single long, the factor starts at
+		// index 65
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 65; i++) {
+			sb.append('a');
+		}
+		BinaryWord word = BinaryWord.valueOf(sb.toString() + "abbaa");
+		assertThat(matcher.step1(word.bits, word.length()), is(false));
+		assertThat(matcher.step2(word.bits, word.length()), is(true));
+	}
+
+	@Test
+	public void testPackedPatternIAcrossLongs() {
+		// runs of every length, also across the boundaries of the longs
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			StringBuilder sb = new StringBuilder();
+			char letter = 'a';
+			double change = random.nextDouble();
+			for (int j = random.nextInt(300); j > 0; j--) {
+				if (random.nextDouble() < change) {
+					letter = letter == 'a' ? 'b' : 'a';
+				}
+				sb.append(letter);
+			}
+			char[] chars = sb.toString().toCharArray();
+			BinaryWord word = BinaryWord.valueOf(sb.toString());
+			assertThat(sb.toString(), matcher.findPatternI(word.bits, word.length(), 0),
+					is(matcher.findPatternI(chars, 'a')));
+			assertThat(sb.toString(), matcher.findPatternI(word.bits, word.length(), 1),
+					is(matcher.findPatternI(chars, 'b')));
+		}
+	}
+
 	@Test
 	public void testKmpFailureFunction1() {
 		char[] pattern = "ACACAGT".toCharArray();
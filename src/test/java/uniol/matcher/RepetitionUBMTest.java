@@ -0,0 +1,109 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RepetitionUBMTest {
+
+	private RepetitionUBM matcher = new RepetitionUBM();
+
+	@Test
+	public void testPatternIIa() {
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abbaa")), is(true));
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abbbaba")), is(true));
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abbabaa")), is(true));
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abababbaababa")), is(true));
+		// word is missing final 'a'
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("abbab")), is(false));
+	}
+
+	@Test
+	public void testPatternIIb() {
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("baabb")), is(true));
+		assertThat(matcher.containsPatternII(BinaryWord.valueOf("aaabaabbaa")), is(true));
+	}
+
+	@Test
+	public void testAgreesWithPatternUBM() {
+		PatternUBM reference = new PatternUBM();
+		for (int length = 0; length <= 14; length++) {
+			for (long bits = 0; bits < 1L << length; bits++) {
+				BinaryWord word = BinaryWord.valueOf(bits, length);
+				assertThat(word.toString(), matcher.isUnsolvableBinaryWord(word),
+						is(reference.isUnsolvableBinaryWord(word)));
+			}
+		}
+	}
+
+	@Test
+	public void testLongPeriodicWord() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			builder.append("ab");
+		}
+		assertThat(matcher.isUnsolvableBinaryWord(builder.toString()), is(false));
+	}
+
+	@Test
+	public void testLongPatternII() {
+		StringBuilder w = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			w.append('b');
+		}
+		String word = "ab" + w + "ba" + w;
+		assertThat(matcher.isUnsolvableBinaryWord(word), is(false));
+		assertThat(matcher.isUnsolvableBinaryWord(word + "a"), is(true));
+	}
+
+	@Test
+	public void testLongestCommonExtension() {
+		Random random = new Random(7);
+		long[] bits = { random.nextLong(), random.nextLong() };
+		// a long period so that the extensions are not all short
+		bits[1] = bits[0];
+		BinaryWord word = BinaryWord.valueOf(bits, 120);
+		LongestCommonExtension lce = new LongestCommonExtension(word);
+		for (int x = 0; x < 120; x++) {
+			for (int y = 0; y < 120; y++) {
+				int forward = 0;
+				while (x + forward < 120 && y + forward < 120
+						&& word.bitAt(x + forward) == word.bitAt(y + forward)) {
+					forward++;
+				}
+				int backward = 0;
+				while (x - backward >= 0 && y - backward >= 0
+						&& word.bitAt(x - backward) == word.bitAt(y - backward)) {
+					backward++;
+				}
+				assertThat(lce.forward(x, y), is(forward));
+				assertThat(lce.backward(x, y), is(backward));
+			}
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
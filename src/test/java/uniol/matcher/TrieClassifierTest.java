@@ -0,0 +1,118 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TrieClassifierTest {
+
+	private final TrieClassifier classifier = new TrieClassifier();
+	private final PatternUBM reference = new PatternUBM();
+
+	@Test
+	public void testAllWords() {
+		List<String> words = new ArrayList<>();
+		for (int length = 0; length <= 12; length++) {
+			words.addAll(new BinaryWordList().getWordsOfLength(length));
+		}
+		String[] batch = words.toArray(new String[0]);
+		assertThat(classifier.classify(batch), is(reference.classify(batch)));
+		assertThat(classifier.getNodeCount(), is(batch.length));
+	}
+
+	@Test
+	public void testRandomExtensions() {
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			String prefix = randomWord(random, random.nextInt(30));
+			String[] batch = new String[1 + random.nextInt(100)];
+			for (int j = 0; j < batch.length; j++) {
+				String suffix = randomWord(random, random.nextInt(20));
+				batch[j] = random.nextInt(10) == 0 ? prefix : prefix + suffix;
+			}
+			assertThat(classifier.classify(batch), is(reference.classify(batch)));
+		}
+	}
+
+	@Test
+	public void testSharedPrefixIsAppendedOnce() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			sb.append("ab");
+		}
+		String prefix = sb.toString();
+		String[] batch = new String[256];
+		for (int j = 0; j < batch.length; j++) {
+			String suffix = Integer.toBinaryString(j | 256).substring(1);
+			batch[j] = prefix + suffix.replace('0', 'a').replace('1', 'b');
+		}
+		BitSet result = classifier.classify(batch);
+		assertThat(result, is(reference.classify(batch)));
+		// every trie node below the prefix is appended and removed at
+		// most once, nothing depends on the prefix length per branch
+		assertThat(classifier.getAppendCount(), lessThan(prefix.length() + 2L * batch.length));
+		assertThat(classifier.getRollbackCount(), lessThan(2L * batch.length));
+	}
+
+	@Test
+	public void testSubtreeBelowUnsolvablePrefix() {
+		String[] batch = { "aabbaa", "aabbaaba", "aabbaabbbbbbbbb", "aabba", "aab" };
+		BitSet expected = new BitSet();
+		expected.set(0, 3);
+		assertThat(classifier.classify(batch), is(expected));
+		// the letters of "aabbaa" but none below it
+		assertThat(classifier.getAppendCount(), is(6L));
+		assertThat(classifier.getRollbackCount(), is(0L));
+	}
+
+	@Test
+	public void testDuplicateWords() {
+		String[] batch = { "abbaa", "ab", "abbaa", "", "ab" };
+		BitSet expected = new BitSet();
+		expected.set(0);
+		expected.set(2);
+		assertThat(classifier.classify(batch), is(expected));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLetter() {
+		classifier.classify(new String[] { "abc" });
+	}
+
+	private static String randomWord(Random random, int length) {
+		char[] word = new char[length];
+		for (int i = 0; i < length; i++) {
+			word[i] = random.nextBoolean() ? 'a' : 'b';
+		}
+		return new String(word);
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,9 +19,11 @@
 
 package uniol.matcher;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.BitSet;
 import java.util.List;
 
 import org.junit.Before;
@@ -55,11 +57,44 @@ public class UnsolvableBinwordMatcherTest {
 		testAll(matcher);
 	}
 
+	@Test
+	public void repetitionUBMTest() {
+		UnsolvableBinwordMatcher matcher = new RepetitionUBM();
+		testAll(matcher);
+	}
+
+	@Test
+	public void automatonUBMTest() {
+		UnsolvableBinwordMatcher matcher = new AutomatonUBM(unsolvableWords);
+		testAll(matcher);
+	}
+
+	@Test
+	public void lookupTableUBMTest() {
+		UnsolvableBinwordMatcher matcher = new LookupTableUBM(16);
+		testAll(matcher);
+	}
+
+	@Test
+	public void hybridUBMTest() {
+		UnsolvableBinwordMatcher matcher = new HybridUBM();
+		testAll(matcher);
+	}
+
+	@Test
+	public void cachingUBMTest() {
+		UnsolvableBinwordMatcher matcher = new CachingUBM(new PatternUBM(), 1 << 10);
+		testAll(matcher);
+	}
+
 	private void testAll(UnsolvableBinwordMatcher matcher) {
 		testUnsolvableWords(matcher);
 		testUnsolvableSubWord(matcher);
 		testSimpleSolvableWords(matcher);
 		testSolvableWords(matcher);
+		testPackedWords(matcher);
+		testBatch(matcher);
+		testFindUnsolvableFactor(matcher);
 	}
 
 	private void testUnsolvableWords(UnsolvableBinwordMatcher matcher) {
@@ -82,8 +117,6 @@ public class UnsolvableBinwordMatcherTest {
 	}
 
 	private void testSolvableWords(UnsolvableBinwordMatcher matcher) {
-		BinaryWordList wordList = new BinaryWordList();
-		List<String> unsolvableWords = wordList.getUnsolvableWords();
 		for (String minUnsolvableWord : unsolvableWords) {
 			String prefix = minUnsolvableWord.substring(0, minUnsolvableWord.length() - 1);
 			String suffix = minUnsolvableWord.substring(1);
@@ -94,6 +127,104 @@ public class UnsolvableBinwordMatcherTest {
 		}
 	}
 
+	private void testPackedWords(UnsolvableBinwordMatcher matcher) {
+		for (String word : unsolvableWords) {
+			assertTrue("The packed unsolvable word '" + word + "' was incorrectly classified as solvable.",
+					matcher.isUnsolvableBinaryWord(BinaryWord.valueOf(word)));
+			String prefix = word.substring(0, word.length() - 1);
+			assertFalse("The packed word '" + prefix + "' was incorrectly classified as unsolvable.",
+					matcher.isUnsolvableBinaryWord(BinaryWord.valueOf(prefix)));
+		}
+		for (int length = 1; length <= 12; length++) {
+			for (String word : new BinaryWordList().getWordsOfLength(length)) {
+				BinaryWord packed = BinaryWord.valueOf(word);
+				boolean expected = matcher.isUnsolvableBinaryWord(word);
+				assertEquals("Packed and string classification of '" + word + "' differ.", expected,
+						matcher.isUnsolvableBinaryWord(packed));
+				assertEquals("Long and string classification of '" + word + "' differ.", expected,
+						matcher.isUnsolvableBinaryWord(packed.toLong(), length));
+			}
+		}
+	}
+
+	private void testBatch(UnsolvableBinwordMatcher matcher) {
+		String[] minimalWords = unsolvableWords.toArray(new String[0]);
+		BitSet unsolvable = matcher.classify(minimalWords);
+		assertEquals("Not all unsolvable words were classified as unsolvable in a batch.", minimalWords.length,
+				unsolvable.cardinality());
+		for (int length = 0; length <= 12; length++) {
+			String[] words = new BinaryWordList().getWordsOfLength(length).toArray(new String[0]);
+			long[] packed = new long[words.length];
+			for (int i = 0; i < words.length; i++) {
+				packed[i] = BinaryWord.valueOf(words[i]).toLong();
+			}
+			long[] bitmap = new long[BinaryWord.wordCount(words.length)];
+			BitSet result = matcher.classify(words);
+			matcher.classify(packed, length, bitmap);
+			for (int i = 0; i < words.length; i++) {
+				boolean expected = matcher.isUnsolvableBinaryWord(words[i]);
+				assertEquals("Batch and single classification of '" + words[i] + "' differ.", expected,
+						result.get(i));
+				assertEquals("Packed batch and single classification of '" + words[i] + "' differ.",
+						expected, (bitmap[i >>> 6] >>> i & 1) != 0);
+			}
+		}
+	}
+
+	private void testFindUnsolvableFactor(UnsolvableBinwordMatcher matcher) {
+		for (String word : unsolvableWords) {
+			// the only unsolvable factor of a minimal word is the word
+			UnsolvableFactor factor = matcher.findUnsolvableFactor(word);
+			String message = "Wrong factor for the minimal word '" + word + "'.";
+			assertEquals(message, 0, factor.getStart());
+			assertEquals(message, word.length(), factor.getEnd());
+			assertEquals(word, patternOf(factor, word));
+			assertEquals(factor, matcher.findUnsolvableFactor(BinaryWord.valueOf(word)));
+			assertEquals(null, matcher.findUnsolvableFactor(word.substring(1)));
+		}
+		for (int length = 0; length <= 12; length++) {
+			for (String word : new BinaryWordList().getWordsOfLength(length)) {
+				UnsolvableFactor factor = matcher.findUnsolvableFactor(word);
+				assertEquals("Factor and classification of '" + word + "' differ.",
+						matcher.isUnsolvableBinaryWord(word), factor != null);
+				if (factor != null) {
+					String factorWord = word.substring(factor.getStart(), factor.getEnd());
+					assertEquals(factorWord, patternOf(factor, word));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the factor from its pattern and parameters, w is taken from
+	 * the word.
+	 */
+	private static String patternOf(UnsolvableFactor factor, String word) {
+		UnsolvableFactor.Pattern pattern = factor.getPattern();
+		boolean patternA = pattern == UnsolvableFactor.Pattern.IA || pattern == UnsolvableFactor.Pattern.IIA;
+		String a = patternA ? "a" : "b";
+		String b = a.equals("a") ? "b" : "a";
+		StringBuilder builder = new StringBuilder();
+		if (pattern.isPatternI()) {
+			assertTrue(factor.getX() > factor.getY() + 2);
+			builder.append(a).append(repeat(b, factor.getX())).append(a);
+			builder.append(repeat(b, factor.getY())).append(a);
+		} else {
+			assertTrue(factor.getK() >= 1);
+			String w = word.substring(factor.getStart() + 2, factor.getStart() + 2 + factor.getWLength());
+			builder.append(a).append(b).append(w).append(repeat(b + a + w, factor.getK())).append(a);
+		}
+		return builder.toString();
+	}
+
+	private static String repeat(String s, int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.append(s);
+		}
+		return builder.toString();
+	}
+
 }
 
 // vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
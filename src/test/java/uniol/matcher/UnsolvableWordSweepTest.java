@@ -0,0 +1,61 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class UnsolvableWordSweepTest {
+
+	@Test
+	public void testCountsMatchSequentialLoop() {
+		UnsolvableBinwordMatcher matcher = new PatternUBM();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// small threshold so that the ranges are actually split
+			UnsolvableWordSweep sweep = new UnsolvableWordSweep(matcher, pool, 64);
+			SortedMap<Integer, Long> counts = sweep.countUnsolvable(1, 14);
+			BinaryWordList wordList = new BinaryWordList();
+			for (int length = 1; length <= 14; length++) {
+				long expected = wordList.getWordsOfLength(length).stream()
+						.filter(matcher::isUnsolvableBinaryWord).count();
+				assertThat(counts.get(length), is(expected));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testKnownCounts() {
+		UnsolvableWordSweep sweep = new UnsolvableWordSweep(new LetterCountingUBM());
+		assertThat(sweep.countUnsolvable(4), is(0L));
+		assertThat(sweep.countUnsolvable(5), is(2L));
+		assertThat(sweep.countUnsolvable(8), is(112L));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,103 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WordFileClassifierTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final PatternUBM matcher = new PatternUBM();
+
+	@Test
+	public void testAgreesWithMatcher() throws IOException {
+		List<String> words = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int j = random.nextInt(i % 10 == 0 ? 200 : 30); j > 0; j--) {
+				word.append(random.nextBoolean() ? 'a' : 'b');
+			}
+			words.add(word.toString());
+		}
+
+		Path input = folder.newFile().toPath();
+		try (Writer out = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+			out.write("# comment\n");
+			for (int i = 0; i < words.size(); i++) {
+				out.write(words.get(i));
+				out.write(i % 3 == 0 ? "\r\n" : "\n");
+			}
+		}
+
+		for (int chunkSize : new int[] { 1, 100, 1 << 20 }) {
+			Path output = folder.newFile().toPath();
+			WordFileClassifier.Result result = new WordFileClassifier(matcher, ForkJoinPool.commonPool(),
+					chunkSize).classify(input, output);
+			BitSet bits = WordFileClassifier.readResult(output);
+			assertThat(result.getWordCount(), is((long) words.size()));
+			assertThat(result.getUnsolvableCount(), is((long) bits.cardinality()));
+			LongBuffer packed = WordFileClassifier.readResultBits(output);
+			assertThat(packed.limit(), is((words.size() + Long.SIZE - 1) / Long.SIZE));
+			for (int i = 0; i < words.size(); i++) {
+				assertThat(words.get(i), bits.get(i), is(matcher.isUnsolvableBinaryWord(words.get(i))));
+				assertThat(words.get(i), (packed.get(i / Long.SIZE) >>> i & 1) == 1, is(bits.get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		Path output = folder.newFile().toPath();
+		WordFileClassifier.Result result = new WordFileClassifier(matcher).classify(folder.newFile().toPath(),
+				output);
+		assertThat(result.getWordCount(), is(0L));
+		assertThat(WordFileClassifier.readResult(output).isEmpty(), is(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLetter() throws IOException {
+		Path input = folder.newFile().toPath();
+		Files.write(input, "abba\nabca\n".getBytes(StandardCharsets.UTF_8));
+		new WordFileClassifier(matcher).classify(input, folder.newFile().toPath());
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
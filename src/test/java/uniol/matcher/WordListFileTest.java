@@ -0,0 +1,104 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WordListFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWriteAndOpen() throws IOException {
+		List<String> words = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int j = random.nextInt(150); j > 0; j--) {
+				word.append(random.nextBoolean() ? 'a' : 'b');
+			}
+			words.add(word.toString());
+		}
+		Path file = folder.newFile().toPath();
+		WordListFile.write(words, file);
+
+		WordListFile wordList = WordListFile.open(file);
+		List<String> expected = words.stream().sorted(Comparator.comparingInt(String::length))
+				.collect(Collectors.toList());
+		assertThat(wordList.getWords(), is(expected));
+		assertThat(wordList.getMaxLength(), is(expected.get(expected.size() - 1).length()));
+		for (int length = 0; length <= wordList.getMaxLength() + 1; length++) {
+			final int n = length;
+			List<String> wordsOfLength = words.stream().filter(word -> word.length() == n)
+					.collect(Collectors.toList());
+			assertThat(wordList.getWordsOfLength(length), is(wordsOfLength));
+		}
+	}
+
+	@Test
+	public void testResourceMatchesTextFile() throws IOException {
+		List<String> expected;
+		InputStream resource = getClass().getResourceAsStream("/binary-nonsyntetizable-words");
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+			expected = WordListFile.readTextFile(reader);
+		}
+		assertThat(new BinaryWordList().getUnsolvableWords(), is(expected));
+		assertThat(new BinaryWordList().getUnsolvableWordsOfLength(20),
+				is(expected.stream().filter(word -> word.length() == 20).collect(Collectors.toList())));
+	}
+
+	@Test(expected = IOException.class)
+	public void testOpenTruncatedFile() throws IOException {
+		Path file = folder.newFile().toPath();
+		WordListFile.write(Arrays.asList("abbaa", "babba"), file);
+		byte[] content = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(content, content.length - 8));
+		WordListFile.open(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWriteInvalidWord() throws IOException {
+		WordListFile.write(Arrays.asList("abca"), folder.newFile().toPath());
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,132 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import uniol.matcher.WorstCaseWords.Family;
+
+/**
+ * Checks that the runtime on the worst case words grows no faster than
+ * expected. Every family is classified at a base length and at eight times that
+ * length, and the ratio of the best of several runs may exceed
+ * 8<sup>e</sup> for an expected exponent e by a factor of 2.5, which leaves
+ * room for logarithmic factors and noise but not for the next power of n.
+ *
+ * <p>
+ * The growth checks measure wall-clock time and only hold on an otherwise
+ * idle machine, so they are skipped unless the system property
+ * <code>uniol.matcher.timingTests</code> is true, e.g. with
+ * <code>gradle test -Duniol.matcher.timingTests=true</code>. The benchmarks in
+ * <code>LongWordBenchmark</code> cover the same families.
+ * </p>
+ */
+public class WorstCaseLatencyTest {
+
+	private static final int FACTOR = 8;
+	private static final double SLACK = 2.5;
+	private static final int WARMUP_RUNS = 2;
+	private static final int RUNS = 5;
+	private static final boolean TIMING_TESTS = Boolean.getBoolean("uniol.matcher.timingTests");
+
+	@Test
+	public void testFamiliesAreSolvable() {
+		UnsolvableBinwordMatcher matcher = new RepetitionUBM();
+		for (Family family : Family.values()) {
+			if (family != Family.RANDOM) {
+				String word = WorstCaseWords.generate(family, 5000);
+				assertThat(family.toString(), matcher.isUnsolvableBinaryWord(word), is(false));
+			}
+		}
+		assertThat(matcher.isUnsolvableBinaryWord(WorstCaseWords.generate(Family.RANDOM, 5000)), is(true));
+	}
+
+	@Test
+	public void javaRegexUBMTest() {
+		testGrowth(new JavaRegexUBM(), 250, 2);
+	}
+
+	@Test
+	public void patternUBMTest() {
+		testGrowth(new PatternUBM(), 500, 2);
+	}
+
+	@Test
+	public void letterCountingUBMTest() {
+		testGrowth(new LetterCountingUBM(), 10000, 1);
+	}
+
+	@Test
+	public void repetitionUBMTest() {
+		testGrowth(new RepetitionUBM(), 10000, 1);
+	}
+
+	@Test
+	public void hybridUBMTest() {
+		testGrowth(new HybridUBM(), 10000, 1);
+	}
+
+	@Test
+	public void automatonUBMTest() {
+		testGrowth(new AutomatonUBM(new BinaryWordList().getUnsolvableWords()), 500, 2);
+	}
+
+	@Test
+	public void lookupTableUBMTest() {
+		testGrowth(new LookupTableUBM(16), 500, 2);
+	}
+
+	private static void testGrowth(UnsolvableBinwordMatcher matcher, int length, int exponent) {
+		assumeTrue("Timing tests are disabled", TIMING_TESTS);
+		final String implementation = matcher.getClass().getSimpleName();
+		for (Family family : WorstCaseWords.worstCasesFor(implementation)) {
+			final BinaryWord shortWord = BinaryWord.valueOf(WorstCaseWords.generate(family, length));
+			final BinaryWord longWord = BinaryWord
+					.valueOf(WorstCaseWords.generate(family, FACTOR * length));
+			for (int run = 0; run < WARMUP_RUNS; run++) {
+				matcher.isUnsolvableBinaryWord(shortWord);
+				matcher.isUnsolvableBinaryWord(longWord);
+			}
+			long shortTime = Long.MAX_VALUE;
+			long longTime = Long.MAX_VALUE;
+			for (int run = 0; run < RUNS; run++) {
+				shortTime = Math.min(shortTime, time(matcher, shortWord));
+				longTime = Math.min(longTime, time(matcher, longWord));
+			}
+			final double ratio = (double) longTime / Math.max(1, shortTime);
+			assertThat(implementation + " on " + family, ratio,
+					lessThanOrEqualTo(SLACK * Math.pow(FACTOR, exponent)));
+		}
+	}
+
+	private static long time(UnsolvableBinwordMatcher matcher, BinaryWord word) {
+		final long start = System.nanoTime();
+		matcher.isUnsolvableBinaryWord(word);
+		return System.nanoTime() - start;
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -19,60 +19,66 @@
 
 package uniol.matcher;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class BinaryWordList {
 
+	/**
+	 * The minimal unsolvable words, read from the resource on first use and
+	 * shared by all instances.
+	 */
+	private static final class UnsolvableWords {
+
+		static final WordListFile FILE = readWordFile();
+		static final List<String> WORDS = Collections.unmodifiableList(FILE.getWords());
+
+		private static WordListFile readWordFile() {
+			try {
+				return WordListFile.fromResource("/binary-nonsyntetizable-words.bin");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+	}
+
 	public List<String> getWordsOfLength(int length) {
 		int count = (int) Math.pow(2, length);
 		List<String> words = new ArrayList<>(count);
 
+		char[] word = new char[length];
 		for (int i = 0; i < count; i++) {
-			String word = "";
 			for (int j = 0; j < length; j++) {
 				if ((i & (1 << j)) == 0) {
-					word += "a";
+					word[j] = 'a';
 				} else {
-					word += "b";
+					word[j] = 'b';
 				}
 			}
-			words.add(word);
+			words.add(new String(word));
 		}
 
 		return words;
 	}
 
+	/**
+	 * Returns the shared, unmodifiable list of all minimal unsolvable
+	 * words ordered by length.
+	 */
 	public List<String> getUnsolvableWords() {
-		try {
-			return readWordFile();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
+		return UnsolvableWords.WORDS;
 	}
 
+	/**
+	 * Returns an unmodifiable list of the minimal unsolvable words of the
+	 * given length.
+	 */
 	public List<String> getUnsolvableWordsOfLength(int length) {
-		List<String> allWords = getUnsolvableWords();
-		return allWords.stream().filter(word -> word.length() == length).collect(Collectors.toList());
-	}
-
-	private List<String> readWordFile() throws IOException {
-		InputStream is = BinaryWordList.class.getResourceAsStream("/binary-nonsyntetizable-words");
-		BufferedReader br = new BufferedReader(new InputStreamReader(is, Charset.forName("UTF-8")));
-		List<String> words = new ArrayList<>();
-		String line;
-		while ((line = br.readLine()) != null) {
-			if (!line.startsWith("#")) {
-				words.add(line);
-			}
-		}
-		return words;
+		return Collections.unmodifiableList(new ArrayList<>(UnsolvableWords.FILE.getWordsOfLength(length)));
 	}
 
 }
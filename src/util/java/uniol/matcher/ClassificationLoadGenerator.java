@@ -0,0 +1,299 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Client that measures the throughput and latency of a classification server.
+ * Every connection sends random words of a fixed length and keeps up to a
+ * given number of words in flight, so that the server receives pipelined
+ * batches. The latency of a word is the time from writing it to reading its
+ * answer.
+ */
+public class ClassificationLoadGenerator {
+
+	private final String host;
+	private final int port;
+
+	public ClassificationLoadGenerator(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * Sends words on parallel connections and waits for all answers.
+	 *
+	 * @param connections
+	 *                number of parallel connections
+	 * @param wordsPerConnection
+	 *                number of words sent on every connection
+	 * @param length
+	 *                length of the words
+	 * @param window
+	 *                maximum number of words without an answer on a
+	 *                connection
+	 * @throws IOException
+	 *                 if a connection fails or the server answers with an
+	 *                 error
+	 */
+	public Report run(int connections, int wordsPerConnection, int length, int window) throws IOException {
+		final List<Connection> threads = new ArrayList<>();
+		final long start = System.nanoTime();
+		for (int c = 0; c < connections; c++) {
+			final Connection connection = new Connection(c, wordsPerConnection, length, window);
+			threads.add(connection);
+			connection.start();
+		}
+		final long[] latencies = new long[connections * wordsPerConnection];
+		long unsolvable = 0;
+		for (int c = 0; c < connections; c++) {
+			final Connection connection = threads.get(c);
+			try {
+				connection.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted", e);
+			}
+			if (connection.failure != null) {
+				throw connection.failure;
+			}
+			for (int i = 0; i < wordsPerConnection; i++) {
+				latencies[c * wordsPerConnection + i] = connection.latencies.get(i);
+			}
+			unsolvable += connection.unsolvable;
+		}
+		return new Report(latencies, unsolvable, System.nanoTime() - start);
+	}
+
+	private class Connection extends Thread {
+
+		private final int words;
+		private final int length;
+		private final Semaphore window;
+		private final Random random;
+		// send time of every word, replaced by its latency when the
+		// answer arrives
+		final AtomicLongArray latencies;
+		long unsolvable;
+		IOException failure;
+		private volatile IOException sendFailure;
+
+		Connection(int index, int words, int length, int window) {
+			super("load-generator-" + index);
+			this.words = words;
+			this.length = length;
+			this.window = new Semaphore(window);
+			this.random = new Random(index);
+			this.latencies = new AtomicLongArray(words);
+		}
+
+		@Override
+		public void run() {
+			final Socket socket;
+			try {
+				socket = new Socket(host, port);
+			} catch (IOException e) {
+				failure = e;
+				return;
+			}
+			Thread sender = null;
+			try {
+				socket.setTcpNoDelay(true);
+				final BufferedReader in = new BufferedReader(new InputStreamReader(
+						socket.getInputStream(), StandardCharsets.ISO_8859_1));
+				final Writer out = new BufferedWriter(new OutputStreamWriter(
+						socket.getOutputStream(), StandardCharsets.ISO_8859_1));
+				sender = new Thread(() -> send(socket, out), getName() + "-sender");
+				sender.setDaemon(true);
+				sender.start();
+				receive(in);
+			} catch (IOException e) {
+				failure = e;
+			} finally {
+				// wakes the sender if it still waits for the window or for
+				// the socket
+				if (sender != null) {
+					sender.interrupt();
+				}
+				try {
+					socket.close();
+				} catch (IOException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+			if (sender != null) {
+				try {
+					sender.join();
+				} catch (InterruptedException e) {
+					failure = new IOException("Interrupted", e);
+					return;
+				}
+				if (sendFailure != null) {
+					// the receiver only failed because the socket was closed
+					failure = sendFailure;
+				}
+			}
+		}
+
+		private void send(Socket socket, Writer out) {
+			final char[] word = new char[length + 1];
+			word[length] = '\n';
+			try {
+				for (int i = 0; i < words; i++) {
+					if (!window.tryAcquire()) {
+						// the window is full, let the server see
+						// the pending words first
+						out.flush();
+						window.acquire();
+					}
+					for (int j = 0; j < length; j++) {
+						word[j] = random.nextBoolean() ? 'b' : 'a';
+					}
+					latencies.set(i, System.nanoTime());
+					out.write(word);
+				}
+				out.flush();
+			} catch (InterruptedException e) {
+				// the receiver is done
+			} catch (IOException e) {
+				if (!Thread.currentThread().isInterrupted()) {
+					sendFailure = e;
+					// makes the receiver return
+					try {
+						socket.close();
+					} catch (IOException ignored) {
+						// the failure is already recorded
+					}
+				}
+			}
+		}
+
+		private void receive(BufferedReader in) throws IOException {
+			for (int i = 0; i < words; i++) {
+				final String answer = in.readLine();
+				final long now = System.nanoTime();
+				if (answer == null) {
+					throw new IOException("Connection closed after " + i + " answers");
+				} else if (answer.equals("1")) {
+					unsolvable++;
+				} else if (!answer.equals("0")) {
+					throw new IOException("Unexpected answer: " + answer);
+				}
+				latencies.set(i, now - latencies.get(i));
+				window.release();
+			}
+		}
+
+	}
+
+	/**
+	 * Throughput and latency distribution of a run.
+	 */
+	public static final class Report {
+
+		private final long[] latencies;
+		private final long unsolvableCount;
+		private final long nanos;
+
+		Report(long[] latencies, long unsolvableCount, long nanos) {
+			this.latencies = latencies;
+			this.unsolvableCount = unsolvableCount;
+			this.nanos = nanos;
+			Arrays.sort(latencies);
+		}
+
+		public int getWordCount() {
+			return latencies.length;
+		}
+
+		public long getUnsolvableCount() {
+			return unsolvableCount;
+		}
+
+		/**
+		 * Returns the number of classified words per second.
+		 */
+		public double getThroughput() {
+			return latencies.length * 1e9 / nanos;
+		}
+
+		/**
+		 * Returns the latency in nanoseconds that the given fraction of
+		 * the words did not exceed.
+		 *
+		 * @param quantile
+		 *                number between 0 and 1
+		 */
+		public long getLatency(double quantile) {
+			if (latencies.length == 0) {
+				return 0;
+			}
+			final int index = (int) Math.ceil(quantile * latencies.length) - 1;
+			return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d words (%d unsolvable) in %.1f ms, %.0f words/s, latency p50 %.1f us, "
+					+ "p99 %.1f us, max %.1f us", latencies.length, unsolvableCount, nanos / 1e6,
+					getThroughput(), getLatency(0.5) / 1e3, getLatency(0.99) / 1e3,
+					getLatency(1) / 1e3);
+		}
+
+	}
+
+	/**
+	 * Runs a load test against a server on this host.
+	 *
+	 * @param args
+	 *                port, number of connections, words per connection,
+	 *                word length and window
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 5) {
+			System.err.println("Usage: ClassificationLoadGenerator <port> <connections> "
+					+ "<words per connection> <word length> <window>");
+			System.exit(1);
+		}
+		final ClassificationLoadGenerator generator = new ClassificationLoadGenerator("localhost",
+				Integer.parseInt(args[0]));
+		System.out.println(generator.run(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+				Integer.parseInt(args[3]), Integer.parseInt(args[4])));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,310 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Word list in a compact binary format. The words are grouped by length and
+ * bit-packed, with bit i of a word set if letter i is a 'b'. Word j of length
+ * n occupies bits <code>j * n</code> to <code>(j + 1) * n - 1</code> of the
+ * segment for length n, so any word is found without scanning the list.
+ *
+ * <pre>
+ * int magic, int maxLength
+ * (int count, int offset) for every length 0 .. maxLength
+ * long data[]
+ * </pre>
+ *
+ * All numbers are little endian, and offsets count <code>long</code>s from the
+ * start of the data. Within a length the words keep the order in which they
+ * were written.
+ */
+public class WordListFile {
+
+	private static final int MAGIC = 0x5542574c;
+
+	private final ByteBuffer buffer;
+	private final int maxLength;
+	private final int[] counts;
+	// byte position of the segment for every length
+	private final int[] positions;
+
+	private WordListFile(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.capacity() < 2 * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a word list file");
+		}
+		maxLength = buffer.getInt(Integer.BYTES);
+		if (maxLength < 0 || buffer.capacity() < headerSize(maxLength)) {
+			throw new IOException("Truncated word list file");
+		}
+		counts = new int[maxLength + 1];
+		positions = new int[maxLength + 1];
+		final int dataStart = headerSize(maxLength);
+		for (int length = 0; length <= maxLength; length++) {
+			final int entry = 2 * Integer.BYTES * (length + 1);
+			counts[length] = buffer.getInt(entry);
+			positions[length] = dataStart + buffer.getInt(entry + Integer.BYTES) * Long.BYTES;
+			final long end = positions[length] + segmentSize(counts[length], length) * (long) Long.BYTES;
+			if (counts[length] < 0 || end > buffer.capacity()) {
+				throw new IOException("Truncated word list file");
+			}
+		}
+	}
+
+	/**
+	 * Maps a word list file into memory.
+	 *
+	 * @throws IOException
+	 *                 if the file cannot be read or is no word list file
+	 */
+	public static WordListFile open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new WordListFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads a word list file from a classpath resource.
+	 *
+	 * @throws IOException
+	 *                 if the resource does not exist or is no word list file
+	 */
+	public static WordListFile fromResource(String name) throws IOException {
+		try (InputStream in = WordListFile.class.getResourceAsStream(name)) {
+			if (in == null) {
+				throw new IOException("Resource not found: " + name);
+			}
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final byte[] chunk = new byte[1 << 16];
+			int read;
+			while ((read = in.read(chunk)) > 0) {
+				bytes.write(chunk, 0, read);
+			}
+			return new WordListFile(ByteBuffer.wrap(bytes.toByteArray()));
+		}
+	}
+
+	/**
+	 * Returns the length of the longest word in the list.
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Returns the number of words of the given length.
+	 */
+	public int getWordCount(int length) {
+		return length < 0 || length > maxLength ? 0 : counts[length];
+	}
+
+	/**
+	 * Returns the letters of the word with the given index among the words
+	 * of the given length.
+	 *
+	 * @param letters
+	 *                array for the letters, bit i % 64 of element i / 64 is
+	 *                letter i
+	 * @throws IndexOutOfBoundsException
+	 *                 if there is no such word
+	 */
+	public void getBits(int length, int index, long[] letters) {
+		if (index < 0 || index >= getWordCount(length)) {
+			throw new IndexOutOfBoundsException("No word " + index + " of length " + length);
+		}
+		final long start = (long) index * length;
+		for (int k = 0; k * Long.SIZE < length; k++) {
+			final int bits = Math.min(Long.SIZE, length - k * Long.SIZE);
+			final long mask = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+			letters[k] = readBits(positions[length], start + k * Long.SIZE) & mask;
+		}
+	}
+
+	/**
+	 * Returns the word with the given index among the words of the given
+	 * length.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *                 if there is no such word
+	 */
+	public String getWord(int length, int index) {
+		final long[] letters = new long[(length + Long.SIZE - 1) / Long.SIZE];
+		getBits(length, index, letters);
+		final char[] word = new char[length];
+		for (int i = 0; i < length; i++) {
+			word[i] = (letters[i >>> 6] >>> i & 1) == 0 ? 'a' : 'b';
+		}
+		return new String(word);
+	}
+
+	/**
+	 * Returns a view of the words of the given length that decodes every
+	 * word when it is accessed.
+	 */
+	public List<String> getWordsOfLength(int length) {
+		final int count = getWordCount(length);
+		return new AbstractList<String>() {
+
+			@Override
+			public String get(int index) {
+				return getWord(length, index);
+			}
+
+			@Override
+			public int size() {
+				return count;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns all words ordered by length.
+	 */
+	public List<String> getWords() {
+		final List<String> words = new ArrayList<>();
+		for (int length = 0; length <= maxLength; length++) {
+			words.addAll(getWordsOfLength(length));
+		}
+		return words;
+	}
+
+	/**
+	 * Returns the 64 bits of the segment at the given position that start
+	 * at the given bit.
+	 */
+	private long readBits(int position, long bit) {
+		final int index = position + (int) (bit >>> 6) * Long.BYTES;
+		final int offset = (int) bit & 63;
+		long bits = buffer.getLong(index) >>> offset;
+		if (offset != 0 && index + Long.BYTES < buffer.capacity()) {
+			bits |= buffer.getLong(index + Long.BYTES) << (Long.SIZE - offset);
+		}
+		return bits;
+	}
+
+	/**
+	 * Writes the words to a word list file.
+	 *
+	 * @throws IllegalArgumentException
+	 *                 if a word contains a letter other than 'a' and 'b'
+	 */
+	public static void write(Collection<String> words, Path file) throws IOException {
+		int maxLength = 0;
+		for (String word : words) {
+			maxLength = Math.max(maxLength, word.length());
+		}
+		final int[] counts = new int[maxLength + 1];
+		for (String word : words) {
+			counts[word.length()]++;
+		}
+		final int[] offsets = new int[maxLength + 2];
+		for (int length = 0; length <= maxLength; length++) {
+			offsets[length + 1] = offsets[length] + (int) segmentSize(counts[length], length);
+		}
+
+		final ByteBuffer buffer = ByteBuffer
+				.allocate(headerSize(maxLength) + offsets[maxLength + 1] * Long.BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(maxLength);
+		for (int length = 0; length <= maxLength; length++) {
+			buffer.putInt(counts[length]).putInt(offsets[length]);
+		}
+		final int dataStart = buffer.position();
+		final int[] written = new int[maxLength + 1];
+		for (String word : words) {
+			final int length = word.length();
+			final long start = (long) written[length]++ * length;
+			final int position = dataStart + offsets[length] * Long.BYTES;
+			for (int i = 0; i < length; i++) {
+				final char c = word.charAt(i);
+				if (c == 'b') {
+					final long bit = start + i;
+					final int index = position + (int) (bit >>> 6) * Long.BYTES;
+					buffer.putLong(index, buffer.getLong(index) | 1L << bit);
+				} else if (c != 'a') {
+					throw new IllegalArgumentException("Not a binary word: '" + word + "'");
+				}
+			}
+		}
+		Files.write(file, buffer.array());
+	}
+
+	/**
+	 * Reads a text file with one word per line, where lines that start with
+	 * '#' are comments.
+	 */
+	public static List<String> readTextFile(BufferedReader reader) throws IOException {
+		final List<String> words = new ArrayList<>();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (!line.startsWith("#")) {
+				words.add(line);
+			}
+		}
+		return words;
+	}
+
+	private static int headerSize(int maxLength) {
+		return 2 * Integer.BYTES * (maxLength + 2);
+	}
+
+	private static long segmentSize(int count, int length) {
+		return ((long) count * length + Long.SIZE - 1) / Long.SIZE;
+	}
+
+	/**
+	 * Converts a text word list into a word list file.
+	 *
+	 * @param args
+	 *                text file and word list file
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: WordListFile <text file> <word list file>");
+			System.exit(1);
+		}
+		final List<String> words;
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+			words = readTextFile(reader);
+		}
+		write(words, Paths.get(args[1]));
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120
@@ -0,0 +1,161 @@
+/*-
+ * Unsolvable Binary Word Matching
+ * Copyright (C) 2016 Jonas Prellberg
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package uniol.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates long words that are expensive to classify. Apart from
+ * {@link Family#RANDOM} all families are solvable, so a matcher has to read the
+ * whole word and cannot stop at the first unsolvable factor.
+ */
+public final class WorstCaseWords {
+
+	/**
+	 * Families of words together with the implementations they are
+	 * expensive for.
+	 */
+	public enum Family {
+		/**
+		 * Uniformly random letters with a fixed seed. These words contain
+		 * an unsolvable factor near their start and serve as baseline.
+		 */
+		RANDOM,
+		/**
+		 * (ab)<sup>n</sup>: every position is an "ab" or "ba" site, and
+		 * every suffix is periodic, so a pattern II search starts a full
+		 * scan of the rest of the word at every site.
+		 */
+		PERIODIC("PatternUBM", "LetterCountingUBM", "RepetitionUBM", "AutomatonUBM", "LookupTableUBM",
+				"HybridUBM"),
+		/**
+		 * ab(ba)<sup>n</sup>: every prefix of the word with its first two
+		 * letters swapped is a repetition, and only the final 'a' of pattern
+		 * II is missing. This maximizes the borders of the KMP failure
+		 * function and the backtracking of the regular expression.
+		 */
+		NEAR_PATTERN_II("JavaRegexUBM", "PatternUBM", "RepetitionUBM", "AutomatonUBM", "LookupTableUBM",
+				"HybridUBM"),
+		/**
+		 * Lower mechanical word of slope 2/5, a near-periodic word with
+		 * many sites of both kinds.
+		 */
+		BALANCED("JavaRegexUBM", "PatternUBM", "LetterCountingUBM", "HybridUBM"),
+		/**
+		 * Prefix of the Fibonacci word, which is aperiodic but has long
+		 * borders everywhere.
+		 */
+		FIBONACCI("JavaRegexUBM", "PatternUBM"),
+		/**
+		 * a<sup>n</sup>b<sup>n</sup>, which has a single site.
+		 */
+		BLOCKS;
+
+		private final List<String> implementations;
+
+		private Family(String... implementations) {
+			this.implementations = Arrays.asList(implementations);
+		}
+
+		/**
+		 * Returns true if the words are among the most expensive inputs
+		 * of the implementation with the given simple class name.
+		 */
+		public boolean isWorstCaseFor(String implementation) {
+			return implementations.contains(implementation);
+		}
+	}
+
+	private WorstCaseWords() {
+	}
+
+	/**
+	 * Returns the families that are most expensive for the implementation
+	 * with the given simple class name.
+	 */
+	public static List<Family> worstCasesFor(String implementation) {
+		final List<Family> families = new ArrayList<>();
+		for (Family family : Family.values()) {
+			if (family.isWorstCaseFor(implementation)) {
+				families.add(family);
+			}
+		}
+		return families;
+	}
+
+	/**
+	 * Returns the word of the given family and length.
+	 */
+	public static String generate(Family family, int length) {
+		final char[] letters = new char[length];
+		switch (family) {
+		case RANDOM:
+			final Random random = new Random(length);
+			for (int i = 0; i < length; i++) {
+				letters[i] = random.nextBoolean() ? 'b' : 'a';
+			}
+			break;
+		case PERIODIC:
+			for (int i = 0; i < length; i++) {
+				letters[i] = i % 2 == 0 ? 'a' : 'b';
+			}
+			break;
+		case NEAR_PATTERN_II:
+			for (int i = 0; i < length; i++) {
+				letters[i] = i == 0 || (i > 1 && i % 2 == 1) ? 'a' : 'b';
+			}
+			break;
+		case BALANCED:
+			mechanical(letters, 2, 5);
+			break;
+		case FIBONACCI:
+			// letter i is 'b' if floor((i + 2) / phi) = floor((i + 1) / phi)
+			final double phi = (1 + Math.sqrt(5)) / 2;
+			for (int i = 0; i < length; i++) {
+				letters[i] = Math.floor((i + 2) / phi) == Math.floor((i + 1) / phi) ? 'b' : 'a';
+			}
+			break;
+		case BLOCKS:
+			for (int i = 0; i < length; i++) {
+				letters[i] = i < length / 2 ? 'a' : 'b';
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unhandled family: " + family);
+		}
+		return new String(letters);
+	}
+
+	/**
+	 * Fills the array with the lower mechanical word of slope p / q, whose
+	 * letter i is 'b' if floor((i + 1) p / q) > floor(i p / q).
+	 */
+	private static void mechanical(char[] letters, int p, int q) {
+		for (int i = 0; i < letters.length; i++) {
+			letters[i] = (long) (i + 1) * p / q > (long) i * p / q ? 'b' : 'a';
+		}
+	}
+
+}
+
+// vim: ft=java:noet:sw=8:sts=8:ts=8:tw=120